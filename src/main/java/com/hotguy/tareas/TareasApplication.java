@@ -2,8 +2,10 @@ package com.hotguy.tareas;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication // Marca esta clase como el punto de entrada del proyecto
+@EnableScheduling // Tareas periódicas (compactación de lápidas)
 public class TareasApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,55 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "archivado")
+public class ArchivadoProperties {
+    private boolean habilitado = false; // Hay que activarlo: las tareas archivadas salen de los listados normales
+    private int edadDias = 90; // Completadas y sin cambios desde hace más de esto pasan a tareas_archivo
+    private int tamanoLote = 500; // Tareas por transacción: las filas bloqueadas son como mucho estas
+    private long pausaMs = 200; // Entre lotes, para no competir con las peticiones de los usuarios
+    private long intervaloMs = 3_600_000; // Cada cuánto se lanza
+
+    // Getters y Setters
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public void setHabilitado(boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    public int getEdadDias() {
+        return edadDias;
+    }
+
+    public void setEdadDias(int edadDias) {
+        this.edadDias = edadDias;
+    }
+
+    public int getTamanoLote() {
+        return tamanoLote;
+    }
+
+    public void setTamanoLote(int tamanoLote) {
+        this.tamanoLote = tamanoLote;
+    }
+
+    public long getPausaMs() {
+        return pausaMs;
+    }
+
+    public void setPausaMs(long pausaMs) {
+        this.pausaMs = pausaMs;
+    }
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+}
@@ -0,0 +1,54 @@
+package com.hotguy.tareas.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Caché de segundo nivel de Hibernate: regiones Caffeine (vía JCache) con tamaño máximo y TTL
+@Configuration
+public class CacheConfig {
+
+    public static final String REGION_USUARIOS = "usuarios";
+    public static final String REGION_USUARIOS_NATURAL_ID = "usuarios-naturalid"; // username -> id
+    public static final String REGION_TAREAS = "tareas";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerHibernate(CacheHibernateProperties properties) {
+        // URI propia por contexto: el proveedor reutiliza el CacheManager de una misma URI y las regiones ya existirían
+        URI uri = URI.create("tareas-l2:" + UUID.randomUUID());
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager(uri, getClass().getClassLoader());
+
+        cacheManager.createCache(REGION_USUARIOS, region(properties.getUsuariosMaximo(), properties.getTtlSegundos()));
+        cacheManager.createCache(REGION_USUARIOS_NATURAL_ID, region(properties.getUsuariosMaximo(), properties.getTtlSegundos()));
+        cacheManager.createCache(REGION_TAREAS, region(properties.getTareasMaximo(), properties.getTtlSegundos()));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager cacheManagerHibernate) {
+        return propiedades -> {
+            propiedades.put("hibernate.cache.use_second_level_cache", true);
+            propiedades.put("hibernate.cache.region.factory_class", "jcache");
+            propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerHibernate);
+            // Una región con nombre mal escrito debe fallar al arrancar, no crearse sin límites
+            propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maximo, long ttlSegundos) {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        configuracion.setMaximumSize(OptionalLong.of(maximo));
+        configuracion.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSegundos)));
+        configuracion.setStatisticsEnabled(true);
+        return configuracion;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheHibernateProperties {
+    private long usuariosMaximo = 10_000; // Entradas en las regiones "usuarios" y "usuarios-naturalid"
+    private long tareasMaximo = 100_000; // Entradas en la región "tareas"
+    private long ttlSegundos = 600; // Red de seguridad: nada vive más que esto aunque se escape una invalidación
+
+    // Getters y Setters
+    public long getUsuariosMaximo() {
+        return usuariosMaximo;
+    }
+
+    public void setUsuariosMaximo(long usuariosMaximo) {
+        this.usuariosMaximo = usuariosMaximo;
+    }
+
+    public long getTareasMaximo() {
+        return tareasMaximo;
+    }
+
+    public void setTareasMaximo(long tareasMaximo) {
+        this.tareasMaximo = tareasMaximo;
+    }
+
+    public long getTtlSegundos() {
+        return ttlSegundos;
+    }
+
+    public void setTtlSegundos(long ttlSegundos) {
+        this.ttlSegundos = ttlSegundos;
+    }
+}
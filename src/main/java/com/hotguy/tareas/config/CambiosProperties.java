@@ -0,0 +1,28 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "cambios")
+public class CambiosProperties {
+    private long retencionHoras = 168; // Vida de las lápidas y de las marcas de /api/tasks/changes (7 días)
+    private long compactacionMs = 3_600_000; // Cada cuánto se borran las lápidas caducadas
+
+    // Getters y Setters
+    public long getRetencionHoras() {
+        return retencionHoras;
+    }
+
+    public void setRetencionHoras(long retencionHoras) {
+        this.retencionHoras = retencionHoras;
+    }
+
+    public long getCompactacionMs() {
+        return compactacionMs;
+    }
+
+    public void setCompactacionMs(long compactacionMs) {
+        this.compactacionMs = compactacionMs;
+    }
+}
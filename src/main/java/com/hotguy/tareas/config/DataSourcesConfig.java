@@ -0,0 +1,81 @@
+package com.hotguy.tareas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Con réplica (replica.habilitada=true) o shards (shards.habilitado=true) hay varios pools Hikari independientes:
+// el primario (spring.datasource.* y spring.datasource.hikari.*), la réplica (replica.datasource.*) y los shards
+// (shards.nodos[*]). JPA, Flyway y JdbcTemplate usan un único enrutador por encima de todos ellos
+@Configuration
+@Conditional(DataSourcesConfig.ReplicaOShards.class)
+public class DataSourcesConfig {
+
+    static class ReplicaOShards extends AnyNestedCondition {
+        ReplicaOShards() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(prefix = "replica", name = "habilitada", havingValue = "true")
+        static class Replica {
+        }
+
+        @ConditionalOnProperty(prefix = "shards", name = "habilitado", havingValue = "true")
+        static class Shards {
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primario(DataSourceProperties properties) {
+        HikariDataSource primario = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName("primario"); // Nombre del pool en las métricas hikaricp.*
+        return primario;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "replica", name = "habilitada", havingValue = "true")
+    @ConfigurationProperties("replica.datasource")
+    public HikariDataSource replica() {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true); // Una escritura mal enrutada falla en vez de divergir de la réplica
+        return replica;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "shards", name = "habilitado", havingValue = "true")
+    public NodosShard nodosShard(@Qualifier("primario") HikariDataSource primario, ShardsProperties properties,
+                                 MeterRegistry registry,
+                                 @Value("${spring.flyway.locations:classpath:db/migration}") String[] migraciones) {
+        return new NodosShard(primario, properties, registry, migraciones);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primario") HikariDataSource primario,
+                                 @Qualifier("replica") ObjectProvider<HikariDataSource> replica,
+                                 ObjectProvider<NodosShard> nodos,
+                                 ReplicaProperties properties) {
+        NodosShard shards = nodos.getIfAvailable();
+        EnrutadorDataSource enrutador = new EnrutadorDataSource(primario, replica.getIfAvailable(),
+                shards == null ? List.of() : shards.pools(), properties);
+        // La conexión física se pide en la primera sentencia, cuando la transacción ya está marcada como readOnly
+        // (o con su shard fijado) o no
+        return new LazyConnectionDataSourceProxy(enrutador);
+    }
+}
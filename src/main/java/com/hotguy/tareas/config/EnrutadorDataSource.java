@@ -0,0 +1,137 @@
+package com.hotguy.tareas.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Elige primario o réplica al pedir la conexión física: las transacciones readOnly van a la réplica, salvo que
+// su usuario haya confirmado una escritura hace menos de replica.lectura-tras-escritura-ms (leería datos atrasados).
+// Con sharding, una transacción con un shard fijado (DirectorioShards) va a ese shard, que no tiene réplica.
+// Las lecturas que no pueden ir atrasadas (el login) se hacen dentro de enPrimario: siguen siendo readOnly.
+// Debe ir detrás de un LazyConnectionDataSourceProxy: al empezar la transacción aún no se sabe si es de solo lectura
+public class EnrutadorDataSource extends AbstractRoutingDataSource {
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    private static final int MAX_ESCRITURAS = 100_000; // Ventanas abiertas a la vez; Caffeine expulsa en O(1) al llenarse
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>(); // Shard de la transacción en curso
+    private static final ThreadLocal<Boolean> EN_PRIMARIO = new ThreadLocal<>(); // Lecturas que van al primario
+
+    private final ReplicaProperties properties;
+    private final boolean conReplica;
+    private final Cache<String, Long> ultimasEscrituras; // username -> nanoTime del commit; caduca con su ventana
+
+    // replica puede ser null; shards son los nodos 1..n (el 0 es el primario)
+    public EnrutadorDataSource(DataSource primario, DataSource replica, List<? extends DataSource> shards,
+                               ReplicaProperties properties) {
+        this.properties = properties;
+        this.conReplica = replica != null;
+        this.ultimasEscrituras = Caffeine.newBuilder()
+                .maximumSize(MAX_ESCRITURAS)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String username, Long instante, long ahoraNanos) {
+                        return TimeUnit.MILLISECONDS.toNanos(properties.getLecturaTrasEscrituraMs());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String username, Long instante, long ahoraNanos, long duracionActual) {
+                        return expireAfterCreate(username, instante, ahoraNanos);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String username, Long instante, long ahoraNanos, long duracionActual) {
+                        return duracionActual;
+                    }
+                })
+                .build();
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(Destino.PRIMARIO, primario);
+        if (conReplica) destinos.put(Destino.REPLICA, replica);
+        for (int i = 0; i < shards.size(); i++) {
+            destinos.put(i + 1, shards.get(i));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario); // Sin transacción (Flyway, consultas sueltas): primario
+        afterPropertiesSet();
+    }
+
+    // Hay que fijarlo antes de la primera sentencia de la transacción y liberarlo al terminarla
+    public static void fijarShard(int shard) {
+        SHARD.set(shard);
+    }
+
+    public static Integer shardActual() {
+        return SHARD.get();
+    }
+
+    public static void liberarShard() {
+        SHARD.remove();
+    }
+
+    // Las transacciones de solo lectura que pidan su conexión durante la llamada usan el primario en vez de la réplica
+    public static <T> T enPrimario(Supplier<T> lectura) {
+        if (EN_PRIMARIO.get() != null) return lectura.get();
+        EN_PRIMARIO.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            EN_PRIMARIO.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = SHARD.get();
+        if (shard != null && shard > 0) {
+            return shard;
+        }
+        String username = usuarioActual();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (username != null && properties.getLecturaTrasEscrituraMs() > 0
+                    && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        marcarEscritura(username);
+                    }
+                });
+            }
+            return Destino.PRIMARIO;
+        }
+        return !conReplica || EN_PRIMARIO.get() != null || (username != null && escribioHacePoco(username))
+                ? Destino.PRIMARIO : Destino.REPLICA;
+    }
+
+    private void marcarEscritura(String username) {
+        ultimasEscrituras.put(username, System.nanoTime());
+    }
+
+    // La ventana se vuelve a comprobar al leer: replica.lectura-tras-escritura-ms puede haber cambiado desde el commit
+    private boolean escribioHacePoco(String username) {
+        Long instante = ultimasEscrituras.getIfPresent(username);
+        return instante != null && !caducada(instante, System.nanoTime());
+    }
+
+    private boolean caducada(long instante, long ahora) {
+        return ahora - instante > TimeUnit.MILLISECONDS.toNanos(properties.getLecturaTrasEscrituraMs());
+    }
+
+    private static String usuarioActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || auth instanceof AnonymousAuthenticationToken ? null : auth.getName();
+    }
+}
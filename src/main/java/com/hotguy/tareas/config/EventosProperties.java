@@ -0,0 +1,46 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "eventos")
+public class EventosProperties {
+    private int hilosEnvio = 8; // Hilos compartidos que escriben en las conexiones SSE (no uno por conexión)
+    private int colaMaxima = 256; // Eventos pendientes por conexión; al superarse se descartan y se envía "resync"
+    private long timeoutMs = 1_800_000; // Vida máxima de una conexión SSE (el cliente se reconecta)
+    private long latidoMs = 25_000; // Comentario periódico para que proxies y balanceadores no corten la conexión
+
+    // Getters y Setters
+    public int getHilosEnvio() {
+        return hilosEnvio;
+    }
+
+    public void setHilosEnvio(int hilosEnvio) {
+        this.hilosEnvio = hilosEnvio;
+    }
+
+    public int getColaMaxima() {
+        return colaMaxima;
+    }
+
+    public void setColaMaxima(int colaMaxima) {
+        this.colaMaxima = colaMaxima;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public long getLatidoMs() {
+        return latidoMs;
+    }
+
+    public void setLatidoMs(long latidoMs) {
+        this.latidoMs = latidoMs;
+    }
+}
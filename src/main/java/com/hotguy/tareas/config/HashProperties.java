@@ -0,0 +1,55 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "hash")
+public class HashProperties {
+    private int hilos = Runtime.getRuntime().availableProcessors(); // BCrypt es CPU pura: no más hilos que núcleos
+    private int cola = 64; // Peticiones esperando hash antes de responder 429
+    private long timeoutMs = 5_000; // Espera máxima (cola + hash) antes de rendirse
+    private int retryAfterSegundos = 1;
+    private int bcryptCoste = 10; // Cada +1 duplica el tiempo de hash: ajustar contra la latencia objetivo
+
+    // Getters y Setters
+    public int getHilos() {
+        return hilos;
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = hilos;
+    }
+
+    public int getCola() {
+        return cola;
+    }
+
+    public void setCola(int cola) {
+        this.cola = cola;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public int getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+
+    public void setRetryAfterSegundos(int retryAfterSegundos) {
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public int getBcryptCoste() {
+        return bcryptCoste;
+    }
+
+    public void setBcryptCoste(int bcryptCoste) {
+        this.bcryptCoste = bcryptCoste;
+    }
+}
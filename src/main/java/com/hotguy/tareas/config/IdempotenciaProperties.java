@@ -0,0 +1,73 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "idempotencia")
+public class IdempotenciaProperties {
+    private long ttlSegundos = 86_400; // Durante cuánto se repite la respuesta guardada de una Idempotency-Key
+    private int franjas = 64; // Cerrojos independientes del almacén en memoria (claves repartidas por hash)
+    private int maxClaves = 100_000; // Respuestas guardadas en memoria; al superarse salen las más antiguas
+    private long esperaMs = 10_000; // Lo que espera un duplicado a que termine la primera petición (luego 409)
+    private boolean persistente = false; // true = las respuestas también se guardan en la tabla claves_idempotencia
+    private long reservaSegundos = 60; // Tabla: una reserva sin respuesta (nodo caído a mitad) se libera pasado este tiempo
+    private long limpiezaMs = 60_000; // Cada cuánto se borran las claves caducadas
+
+    // Getters y Setters
+    public long getTtlSegundos() {
+        return ttlSegundos;
+    }
+
+    public void setTtlSegundos(long ttlSegundos) {
+        this.ttlSegundos = ttlSegundos;
+    }
+
+    public int getFranjas() {
+        return franjas;
+    }
+
+    public void setFranjas(int franjas) {
+        this.franjas = franjas;
+    }
+
+    public int getMaxClaves() {
+        return maxClaves;
+    }
+
+    public void setMaxClaves(int maxClaves) {
+        this.maxClaves = maxClaves;
+    }
+
+    public long getEsperaMs() {
+        return esperaMs;
+    }
+
+    public void setEsperaMs(long esperaMs) {
+        this.esperaMs = esperaMs;
+    }
+
+    public boolean isPersistente() {
+        return persistente;
+    }
+
+    public void setPersistente(boolean persistente) {
+        this.persistente = persistente;
+    }
+
+    public long getReservaSegundos() {
+        return reservaSegundos;
+    }
+
+    public void setReservaSegundos(long reservaSegundos) {
+        this.reservaSegundos = reservaSegundos;
+    }
+
+    public long getLimpiezaMs() {
+        return limpiezaMs;
+    }
+
+    public void setLimpiezaMs(long limpiezaMs) {
+        this.limpiezaMs = limpiezaMs;
+    }
+}
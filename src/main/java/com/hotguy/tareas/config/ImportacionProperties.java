@@ -0,0 +1,55 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "importacion")
+public class ImportacionProperties {
+    private int tamanoLote = 500; // INSERT por lote JDBC (y cada cuántas tareas se vacía el contexto de persistencia)
+    private int filasPorCommit = 10_000; // Tareas por transacción: un fallo a mitad conserva lo ya confirmado
+    private int maxRechazosInforme = 1000; // Filas rechazadas que se detallan en la respuesta (el total se cuenta siempre)
+    private long retencionSegundos = 3600; // Tiempo que se puede consultar el progreso de una importación terminada
+    private long limpiezaMs = 60_000; // Cada cuánto se olvidan los progresos caducados
+
+    // Getters y Setters
+    public int getTamanoLote() {
+        return tamanoLote;
+    }
+
+    public void setTamanoLote(int tamanoLote) {
+        this.tamanoLote = tamanoLote;
+    }
+
+    public int getFilasPorCommit() {
+        return filasPorCommit;
+    }
+
+    public void setFilasPorCommit(int filasPorCommit) {
+        this.filasPorCommit = filasPorCommit;
+    }
+
+    public int getMaxRechazosInforme() {
+        return maxRechazosInforme;
+    }
+
+    public void setMaxRechazosInforme(int maxRechazosInforme) {
+        this.maxRechazosInforme = maxRechazosInforme;
+    }
+
+    public long getRetencionSegundos() {
+        return retencionSegundos;
+    }
+
+    public void setRetencionSegundos(long retencionSegundos) {
+        this.retencionSegundos = retencionSegundos;
+    }
+
+    public long getLimpiezaMs() {
+        return limpiezaMs;
+    }
+
+    public void setLimpiezaMs(long limpiezaMs) {
+        this.limpiezaMs = limpiezaMs;
+    }
+}
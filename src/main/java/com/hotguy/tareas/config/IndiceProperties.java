@@ -0,0 +1,46 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "indice")
+public class IndiceProperties {
+    private boolean habilitado = false; // Índice en memoria de tareas por usuario para /api/tasks/list
+    private long maxTareas = 200_000; // Presupuesto de memoria: tareas totales entre todos los usuarios
+    private long inactividadSegundos = 600; // Usuarios sin consultas durante este tiempo salen del índice
+    private long limpiezaMs = 60_000; // Cada cuánto se retiran los usuarios inactivos
+
+    // Getters y Setters
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public void setHabilitado(boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    public long getMaxTareas() {
+        return maxTareas;
+    }
+
+    public void setMaxTareas(long maxTareas) {
+        this.maxTareas = maxTareas;
+    }
+
+    public long getInactividadSegundos() {
+        return inactividadSegundos;
+    }
+
+    public void setInactividadSegundos(long inactividadSegundos) {
+        this.inactividadSegundos = inactividadSegundos;
+    }
+
+    public long getLimpiezaMs() {
+        return limpiezaMs;
+    }
+
+    public void setLimpiezaMs(long limpiezaMs) {
+        this.limpiezaMs = limpiezaMs;
+    }
+}
@@ -0,0 +1,94 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "limite-tasa")
+public class LimiteTasaProperties {
+    private boolean habilitado = true;
+    private int maxCubos = 100_000; // Cubos en memoria (uno por grupo y usuario/IP); al llegar aquí las claves nuevas comparten un cubo por grupo
+    private long limpiezaMs = 60_000; // Cada cuánto se retiran los cubos inactivos (llenos otra vez)
+    private Limite auth = new Limite(20, 1); // /api/auth/** por IP: frena el relleno de credenciales (cada intento cuesta un BCrypt)
+    private Limite tareas = new Limite(300, 100); // /api/tasks/** y /api/user/** por usuario
+    private Limite admin = new Limite(60, 20); // /api/admin/** por usuario
+
+    // Cubo de tokens: admite ráfagas de "capacidad" peticiones y se rellena a "por-segundo" tokens por segundo
+    public static class Limite {
+        private int capacidad;
+        private double porSegundo;
+
+        public Limite() {
+        }
+
+        public Limite(int capacidad, double porSegundo) {
+            this.capacidad = capacidad;
+            this.porSegundo = porSegundo;
+        }
+
+        public int getCapacidad() {
+            return capacidad;
+        }
+
+        public void setCapacidad(int capacidad) {
+            this.capacidad = capacidad;
+        }
+
+        public double getPorSegundo() {
+            return porSegundo;
+        }
+
+        public void setPorSegundo(double porSegundo) {
+            this.porSegundo = porSegundo;
+        }
+    }
+
+    // Getters y Setters
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public void setHabilitado(boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    public int getMaxCubos() {
+        return maxCubos;
+    }
+
+    public void setMaxCubos(int maxCubos) {
+        this.maxCubos = maxCubos;
+    }
+
+    public long getLimpiezaMs() {
+        return limpiezaMs;
+    }
+
+    public void setLimpiezaMs(long limpiezaMs) {
+        this.limpiezaMs = limpiezaMs;
+    }
+
+    public Limite getAuth() {
+        return auth;
+    }
+
+    public void setAuth(Limite auth) {
+        this.auth = auth;
+    }
+
+    public Limite getTareas() {
+        return tareas;
+    }
+
+    public void setTareas(Limite tareas) {
+        this.tareas = tareas;
+    }
+
+    public Limite getAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(Limite admin) {
+        this.admin = admin;
+    }
+}
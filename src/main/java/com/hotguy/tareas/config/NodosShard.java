@@ -0,0 +1,77 @@
+package com.hotguy.tareas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Pools Hikari de los shards 1..n, con el mismo esquema que el principal (se migran con Flyway al arrancar).
+// Cada shard genera ids de tarea en su propio tramo de tareas_seq, así un id nunca se repite entre shards
+// (la caché de segundo nivel y el rebalanceo dependen de ello)
+public class NodosShard implements AutoCloseable {
+
+    public static final long IDS_POR_SHARD = 1_000_000_000_000L;
+
+    private final DataSource directorio;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    public NodosShard(DataSource directorio, ShardsProperties properties, MeterRegistry registry, String[] migraciones) {
+        this.directorio = directorio;
+        for (ShardsProperties.Nodo nodo : properties.getNodos()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + (pools.size() + 1)); // hikaricp.*{pool=shard-n}
+            pool.setJdbcUrl(nodo.getUrl());
+            pool.setUsername(nodo.getUsername());
+            pool.setPassword(nodo.getPassword());
+            pool.setMaximumPoolSize(nodo.getMaxConexiones());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            pools.add(pool);
+
+            String vendor = DatabaseDriver.fromJdbcUrl(nodo.getUrl()).getId();
+            Flyway.configure().dataSource(pool)
+                    .locations(Arrays.stream(migraciones).map(l -> l.replace("{vendor}", vendor)).toArray(String[]::new))
+                    .load().migrate();
+            reservarTramoIds(new JdbcTemplate(pool), vendor, pools.size() * IDS_POR_SHARD + 1);
+        }
+    }
+
+    public int total() {
+        return pools.size() + 1;
+    }
+
+    // El 0 es el directorio: el pool principal sin pasar por el enrutador (fuera de la transacción en curso)
+    public DataSource nodo(int shard) {
+        return shard == 0 ? directorio : pools.get(shard - 1);
+    }
+
+    public List<HikariDataSource> pools() {
+        return pools;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    // Solo sube la secuencia: al rearrancar con el shard ya en uso no se toca
+    private static void reservarTramoIds(JdbcTemplate jdbc, String vendor, long inicio) {
+        switch (vendor) {
+            case "mysql" -> jdbc.update("UPDATE tareas_seq SET next_val = ? WHERE next_val < ?", inicio, inicio);
+            case "h2" -> {
+                Long actual = jdbc.queryForObject(
+                        "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TAREAS_SEQ'", Long.class);
+                if (actual != null && actual < inicio) {
+                    jdbc.execute("ALTER SEQUENCE tareas_seq RESTART WITH " + inicio);
+                }
+            }
+            default -> throw new IllegalStateException("Base de datos no soportada para shards: " + vendor);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+// El pool de la réplica se configura aparte, en replica.datasource.* (propiedades de Hikari: jdbc-url, username...)
+@Configuration
+@ConfigurationProperties(prefix = "replica")
+public class ReplicaProperties {
+    private boolean habilitada = false; // Sin réplica todo va al datasource de spring.datasource.*
+    private long lecturaTrasEscrituraMs = 0; // Tras un commit de escritura, el usuario lee del primario este tiempo (0 = nunca)
+
+    // Getters y Setters
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    public void setHabilitada(boolean habilitada) {
+        this.habilitada = habilitada;
+    }
+
+    public long getLecturaTrasEscrituraMs() {
+        return lecturaTrasEscrituraMs;
+    }
+
+    public void setLecturaTrasEscrituraMs(long lecturaTrasEscrituraMs) {
+        this.lecturaTrasEscrituraMs = lecturaTrasEscrituraMs;
+    }
+}
@@ -3,6 +3,8 @@ package com.hotguy.tareas.config;
 import com.hotguy.tareas.model.Usuario;
 import com.hotguy.tareas.repository.UsuarioRepository;
 import com.hotguy.tareas.security.JwtFilter;
+import com.hotguy.tareas.security.LimiteTasaFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,26 +24,30 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SeguridadConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(HashProperties hashProperties) {
+        return new BCryptPasswordEncoder(hashProperties.getBcryptCoste()); // Coste configurable (hash.bcrypt-coste)
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, JwtFilter jwtFilter) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtFilter jwtFilter, LimiteTasaFilter limiteTasaFilter) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(AbstractHttpConfigurer::disable)  // Añadir si tienes problemas de CORS
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // SSE: la petición original ya se autorizó
                         .requestMatchers("/api/auth/**").permitAll() // Login sin token
                         .requestMatchers("/api/auth/hello").authenticated() // Prueba OK Token
                         .requestMatchers("/api/user/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health").permitAll() // Sondas de vida sin token
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // Métricas solo para ADMIN
                         .anyRequest().authenticated() // Todo lo demás requiere token
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class) // Insertamos nuestro filtro antes del de Spring
+                .addFilterAfter(limiteTasaFilter, JwtFilter.class) // Con el usuario ya conocido: límite por usuario o por IP
 //                .exceptionHandling(exceptions -> exceptions
 //                        .authenticationEntryPoint((request, response, ex) -> {
 //                            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
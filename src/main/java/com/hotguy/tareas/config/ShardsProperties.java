@@ -0,0 +1,91 @@
+package com.hotguy.tareas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// El shard 0 es el datasource de spring.datasource.* (además guarda todos los usuarios: es el directorio);
+// shards.nodos[0] es el shard 1, shards.nodos[1] el 2...
+@Configuration
+@ConfigurationProperties(prefix = "shards")
+public class ShardsProperties {
+    private boolean habilitado = false; // Sin sharding todas las tareas van al datasource de spring.datasource.*
+    private int activos = 1; // Shards entre los que se reparten los usuarios; los nodos de más esperan a un rebalanceo
+    private int hilosConsulta = 8; // Consultas de administración lanzadas a la vez contra todos los shards
+    private List<Nodo> nodos = new ArrayList<>();
+
+    public static class Nodo {
+        private String url;
+        private String username;
+        private String password = "";
+        private int maxConexiones = 10;
+
+        // Getters y Setters
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaxConexiones() {
+            return maxConexiones;
+        }
+
+        public void setMaxConexiones(int maxConexiones) {
+            this.maxConexiones = maxConexiones;
+        }
+    }
+
+    // Getters y Setters
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public void setHabilitado(boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    public int getActivos() {
+        return activos;
+    }
+
+    public void setActivos(int activos) {
+        this.activos = activos;
+    }
+
+    public int getHilosConsulta() {
+        return hilosConsulta;
+    }
+
+    public void setHilosConsulta(int hilosConsulta) {
+        this.hilosConsulta = hilosConsulta;
+    }
+
+    public List<Nodo> getNodos() {
+        return nodos;
+    }
+
+    public void setNodos(List<Nodo> nodos) {
+        this.nodos = nodos;
+    }
+}
@@ -1,8 +1,13 @@
 package com.hotguy.tareas.controller;
 
+import com.hotguy.tareas.dto.EstadoShard;
+import com.hotguy.tareas.dto.ResultadoRebalanceo;
 import com.hotguy.tareas.dto.UsuarioRequest;
 import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.DirectorioShards;
+import com.hotguy.tareas.service.RebalanceadorShards;
 import com.hotguy.tareas.service.UsuarioService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,9 +19,14 @@ import java.util.Optional;
 public class AdminController {
 
     private final UsuarioService usuarioService;
+    private final DirectorioShards directorioShards;
+    private final RebalanceadorShards rebalanceadorShards;
 
-    public AdminController(UsuarioService usuarioService) {
+    public AdminController(UsuarioService usuarioService, DirectorioShards directorioShards,
+                           RebalanceadorShards rebalanceadorShards) {
         this.usuarioService = usuarioService;
+        this.directorioShards = directorioShards;
+        this.rebalanceadorShards = rebalanceadorShards;
     }
 
     @GetMapping(ApiPaths.AdminPaths.LISTAR_USUARIOS)
@@ -41,4 +51,20 @@ public class AdminController {
             return ResponseEntity.badRequest().body("No se pudo actualizar el rol");
         }
     }
+
+    // Se consulta a todos los shards en paralelo
+    @GetMapping(ApiPaths.AdminPaths.SHARDS)
+    public ResponseEntity<?> estadoShards() {
+        if (!directorioShards.habilitado()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Sharding deshabilitado");
+        }
+        List<EstadoShard> estado = directorioShards.estado();
+        return ResponseEntity.ok(estado);
+    }
+
+    // Activa el siguiente nodo de shards.nodos y le mueve sus usuarios; después hay que fijar shards.activos
+    @PostMapping(ApiPaths.AdminPaths.REBALANCEAR_SHARDS)
+    public ResponseEntity<ResultadoRebalanceo> rebalancearShards() {
+        return ResponseEntity.ok(rebalanceadorShards.anadirShard());
+    }
 }
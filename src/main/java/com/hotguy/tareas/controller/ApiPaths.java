@@ -21,12 +21,20 @@ public class ApiPaths {
         public static final String COMPLETAR = "/{id}/toggleComplete";
         public static final String EDITAR = "/{id}";
         public static final String ELIMINAR = "/{id}";
+        public static final String LOTE = "/batch";
+        public static final String CAMBIOS = "/changes";
+        public static final String EVENTOS = "/events";
+        public static final String EXPORTAR = "/export";
+        public static final String IMPORTAR = "/import";
+        public static final String PROGRESO_IMPORTACION = "/import/progress";
     }
 
     public static class AdminPaths {
         public static final String LISTAR_USUARIOS = "/users";
         public static final String PROMOCIONAR = "/{id}/promote";
         public static final String CAMBIAR_ROL = "/{id}/rol";
+        public static final String SHARDS = "/shards";
+        public static final String REBALANCEAR_SHARDS = "/shards/rebalance";
     }
 
     public static class UserPaths {
@@ -3,6 +3,7 @@ package com.hotguy.tareas.controller;
 import com.hotguy.tareas.dto.AuthRequest;
 import com.hotguy.tareas.dto.UsuarioRequest;
 import com.hotguy.tareas.service.AuthenticationService;
+import com.hotguy.tareas.service.HashSaturadoException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,9 +25,13 @@ public class AuthController {
     // Endpoint para registrar nuevos usuarios
     @PostMapping(ApiPaths.AuthPaths.REGISTER)
     public ResponseEntity<?> registrarUsuario(@RequestBody UsuarioRequest request) {
-        return authenticationService.registrarUsuario(request.getUsername(), request.getPassword())
-                .<ResponseEntity<?>>map(token -> ResponseEntity.ok(new AuthRequest(token)))
-                .orElseGet(() -> ResponseEntity.badRequest().body("El usuario ya existe"));
+        try {
+            return authenticationService.registrarUsuario(request.getUsername(), request.getPassword())
+                    .<ResponseEntity<?>>map(token -> ResponseEntity.ok(new AuthRequest(token)))
+                    .orElseGet(() -> ResponseEntity.badRequest().body("El usuario ya existe"));
+        } catch (HashSaturadoException e) {
+            return AuthenticationService.demasiadasPeticiones(e);
+        }
     }
 
     // Este endpoint requiere token válido (por la configuración de seguridad)
@@ -0,0 +1,38 @@
+package com.hotguy.tareas.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// Peticiones condicionales (If-None-Match) resueltas antes de consultar ni serializar la respuesta
+final class CondicionalHttp {
+
+    // Privado (depende del token) y siempre revalidado: el cliente guarda la respuesta y pregunta con su ETag
+    static final CacheControl REVALIDAR = CacheControl.noCache().cachePrivate();
+
+    private CondicionalHttp() {
+    }
+
+    // Comparación débil (RFC 9110): se ignora el prefijo W/ y se admite una lista de ETags o "*"
+    static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String buscado = sinPrefijoDebil(etag);
+        for (String candidato : ifNoneMatch.split(",")) {
+            String limpio = candidato.trim();
+            if (limpio.equals("*") || sinPrefijoDebil(limpio).equals(buscado)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> noModificado(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDAR).build();
+    }
+
+    private static String sinPrefijoDebil(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -1,15 +1,38 @@
 package com.hotguy.tareas.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.dto.CambiosTareas;
+import com.hotguy.tareas.dto.OperacionLote;
+import com.hotguy.tareas.dto.PaginaTareas;
+import com.hotguy.tareas.dto.ProgresoImportacion;
+import com.hotguy.tareas.dto.ResultadoOperacion;
 import com.hotguy.tareas.dto.TareaRequest;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.dto.VersionColeccion;
 import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.service.CanalEventos;
+import com.hotguy.tareas.service.ExportadorTareas;
+import com.hotguy.tareas.service.ImportadorTareas;
+import com.hotguy.tareas.service.LecturasCompartidas;
 import com.hotguy.tareas.service.TareaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController // Marca esta clase como controlador REST
 @RequestMapping(ApiPaths.TAREAS) // Ruta base de todos los endpoints de esta clase
@@ -18,15 +41,158 @@ public class TareaController {
     @Autowired
     private TareaService tareaService;
 
+    @Autowired
+    private CanalEventos canalEventos;
+
+    @Autowired
+    private LecturasCompartidas lecturasCompartidas;
+
+    @Autowired
+    private ExportadorTareas exportadorTareas;
+
+    @Autowired
+    private ImportadorTareas importadorTareas;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping(ApiPaths.TareaPaths.LISTAR)
-    public ResponseEntity<List<Tarea>> listarTareas(
+    public ResponseEntity<?> listarTareas(
             @RequestParam(required = false) Boolean completada,
             @RequestParam(required = false, defaultValue = "fecha_desc") String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false, defaultValue = "false") boolean incluirArchivadas,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth
+    ) {
+        String username = auth.getName();
+        boolean listaCompleta = cursor == null && limit == null;
+        boolean versionDelListado = listaCompleta && completada == null && !incluirArchivadas;
+
+        // Si el cliente ya tiene esta versión de sus tareas: 304 sin ejecutar el listado ni serializar nada. Sin
+        // If-None-Match, la lista completa sin filtro da ella misma la versión (total y última actualización) y se
+        // ahorra la consulta; el resto la calcula antes de listar, así el ETag nunca es más nuevo que el cuerpo
+        VersionColeccion version = null;
+        if (ifNoneMatch != null || !versionDelListado) {
+            version = tareaService.obtenerVersionColeccion(username);
+            if (CondicionalHttp.coincide(ifNoneMatch, version.etag())) {
+                return CondicionalHttp.noModificado(version.etag());
+            }
+        }
+
+        // Sin cursor ni limit se mantiene la respuesta antigua (lista completa). Las peticiones idénticas
+        // simultáneas (varias pestañas) comparten la consulta y la serialización
+        if (listaCompleta) {
+            Listado listado = lecturasCompartidas.leer(username, completada + "|" + orden + "|" + incluirArchivadas, () -> {
+                List<TareaView> tareas = incluirArchivadas
+                        ? tareaService.obtenerTareasConArchivadas(username, completada, orden)
+                        : tareaService.obtenerTareasFiltradasYOrdenadas(username, completada, orden);
+                return new Listado(serializar(tareas), versionDelListado ? VersionColeccion.de(tareas) : null);
+            });
+            return conVersion(version != null ? version : listado.version())
+                    .contentType(MediaType.APPLICATION_JSON).body(listado.cuerpo());
+        }
+        if (incluirArchivadas) {
+            return ResponseEntity.badRequest().body("incluirArchivadas solo está disponible sin cursor ni limit");
+        }
+
+        try {
+            PaginaTareas pagina = tareaService.obtenerPaginaTareas(username, completada, orden, cursor, limit);
+            return conVersion(version).body(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // La lista ya serializada y, si es la completa sin filtro, la versión que se deduce de ella
+    private record Listado(byte[] cuerpo, VersionColeccion version) {
+    }
+
+    private static ResponseEntity.BodyBuilder conVersion(VersionColeccion version) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok().eTag(version.etag()).cacheControl(CondicionalHttp.REVALIDAR);
+        if (version.ultimaActualizacion() != null) {
+            respuesta.lastModified(version.ultimaActualizacion().atZone(ZoneId.systemDefault()));
+        }
+        return respuesta;
+    }
+
+    private byte[] serializar(List<TareaView> tareas) {
+        try {
+            return objectMapper.writeValueAsBytes(tareas);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Sincronización por deltas: lo creado, cambiado y borrado desde la marca "since" (sin ella, todo)
+    @GetMapping(ApiPaths.TareaPaths.CAMBIOS)
+    public ResponseEntity<?> obtenerCambios(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit,
+            Authentication auth
+    ) {
+        try {
+            CambiosTareas cambios = tareaService.obtenerCambios(auth.getName(), since, limit);
+            return ResponseEntity.ok(cambios);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Eventos en vivo (SSE) de las tareas del usuario; tras un "resync" el cliente debe pedir /changes
+    @GetMapping(value = ApiPaths.TareaPaths.EVENTOS, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirEventos(Authentication auth) {
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no") // Que un proxy nginx no retenga los eventos en su buffer
+                .body(canalEventos.suscribir(auth.getName()));
+    }
+
+    // Todas las tareas del usuario en NDJSON, escritas según se leen de la BD (sirve para historiales enormes).
+    // Con "Accept-Encoding: gzip" la respuesta va comprimida; con incluirArchivadas=true también las archivadas
+    @GetMapping(value = ApiPaths.TareaPaths.EXPORTAR, produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarTareas(
+            @RequestParam(required = false, defaultValue = "false") boolean incluirArchivadas,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
             Authentication auth
     ) {
         String username = auth.getName();
-        List<Tarea> tareas = tareaService.obtenerTareasFiltradasYOrdenadas(username, completada, orden);
-        return ResponseEntity.ok(tareas);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody cuerpo = salida -> {
+            if (gzip) {
+                GZIPOutputStream comprimida = new GZIPOutputStream(salida, 64 * 1024);
+                exportadorTareas.exportar(username, incluirArchivadas, comprimida);
+                comprimida.finish();
+            } else {
+                exportadorTareas.exportar(username, incluirArchivadas, salida);
+            }
+        };
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tareas.ndjson\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return respuesta.body(cuerpo);
+    }
+
+    // Importación masiva (NDJSON o CSV con cabecera): el cuerpo se procesa según llega y se confirma por tandas.
+    // Responde con el resumen final; mientras tanto el progreso se consulta en /import/progress
+    @PostMapping(value = ApiPaths.TareaPaths.IMPORTAR, consumes = {ImportadorTareas.NDJSON, ImportadorTareas.CSV})
+    public ResponseEntity<ProgresoImportacion> importarTareas(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipoContenido,
+            InputStream cuerpo,
+            Authentication auth
+    ) throws IOException {
+        return ResponseEntity.ok(importadorTareas.importar(auth.getName(), MediaType.parseMediaType(tipoContenido), cuerpo));
+    }
+
+    @GetMapping(ApiPaths.TareaPaths.PROGRESO_IMPORTACION)
+    public ResponseEntity<ProgresoImportacion> progresoImportacion(Authentication auth) {
+        ProgresoImportacion progreso = importadorTareas.progreso(auth.getName());
+        return progreso == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(progreso);
     }
 
     @PostMapping(ApiPaths.TareaPaths.CREAR)
@@ -36,17 +202,30 @@ public class TareaController {
     }
 
     @PatchMapping(ApiPaths.TareaPaths.COMPLETAR)
-    public ResponseEntity<Tarea> alternarCompletada(@PathVariable Long id) {
-        Tarea tarea = tareaService.toggleCompletada(id);
+    public ResponseEntity<TareaView> alternarCompletada(@PathVariable Long id, Authentication auth) {
+        TareaView tarea = tareaService.toggleCompletada(id, auth.getName());
         return ResponseEntity.ok(tarea);
     }
 
     @PatchMapping(ApiPaths.TareaPaths.EDITAR)
-    public ResponseEntity<Tarea> editarTarea(@PathVariable Long id, @RequestBody TareaRequest request) {
-        Tarea tarea = tareaService.editarTarea(id, request.getDescripcion(), request.getCompletada());
+    public ResponseEntity<TareaView> editarTarea(@PathVariable Long id, @RequestBody TareaRequest request, Authentication auth) {
+        TareaView tarea = tareaService.editarTarea(id, auth.getName(), request.getDescripcion(), request.getCompletada(), request.getVersion());
         return ResponseEntity.ok(tarea);
     }
 
+    // Aplica muchas operaciones (crear/editar/alternar/eliminar) en una sola transacción
+    @PostMapping(ApiPaths.TareaPaths.LOTE)
+    public ResponseEntity<?> aplicarLote(@RequestBody List<OperacionLote> operaciones, Authentication auth) {
+        boolean esAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        try {
+            List<ResultadoOperacion> resultados = tareaService.aplicarLote(auth.getName(), esAdmin, operaciones);
+            return ResponseEntity.ok(resultados);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Otra petición modificó alguna tarea entre la lectura y el flush: no se aplicó nada
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Alguna tarea fue modificada por otra petición; reintenta el lote");
+        }
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping(ApiPaths.TareaPaths.ELIMINAR)
     public ResponseEntity<?> eliminarTarea(@PathVariable Long id) {
@@ -2,10 +2,13 @@ package com.hotguy.tareas.controller;
 
 import com.hotguy.tareas.dto.UsuarioRequest;
 import com.hotguy.tareas.mapper.UsuarioMapper;
+import com.hotguy.tareas.model.Usuario;
 import com.hotguy.tareas.service.UsuarioService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,11 +25,27 @@ public class UsuarioController {
     }
 
     @GetMapping(ApiPaths.UserPaths.PERFIL)
-    public ResponseEntity<UsuarioRequest> perfilUsuario(Authentication auth) {
+    public ResponseEntity<UsuarioRequest> perfilUsuario(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth
+    ) {
         String username = auth.getName();
-        return usuarioService.buscarPorUsername(username)
-                .map(usuarioMapper::toDto) // Usar el mapper
-                .map(ResponseEntity::ok)
+        return usuarioService.buscarPorUsername(username) // Sale de la caché de segundo nivel
+                .map(usuario -> {
+                    String etag = etagPerfil(usuario);
+                    if (CondicionalHttp.coincide(ifNoneMatch, etag)) {
+                        return CondicionalHttp.<UsuarioRequest>noModificado(etag);
+                    }
+                    return ResponseEntity.ok()
+                            .eTag(etag)
+                            .cacheControl(CondicionalHttp.REVALIDAR)
+                            .body(usuarioMapper.toDto(usuario)); // Usar el mapper
+                })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    // El perfil solo expone id, username (inmutable) y rol: con ellos basta, sin hashear el JSON
+    private static String etagPerfil(Usuario usuario) {
+        return "W/\"" + usuario.getId() + "-" + usuario.getRol() + "\"";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.hotguy.tareas.dto;
+
+import java.util.List;
+
+// Respuesta de /api/tasks/changes: altas y cambios, ids borrados y la marca para la siguiente llamada
+public record CambiosTareas(
+        List<TareaView> actualizadas,
+        List<Long> eliminadas,
+        String marca,
+        boolean hayMas // true = quedan cambios: repetir con la nueva marca antes de dar la sincronización por terminada
+) {
+}
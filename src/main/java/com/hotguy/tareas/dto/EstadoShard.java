@@ -0,0 +1,5 @@
+package com.hotguy.tareas.dto;
+
+// Respuesta de GET /api/admin/shards: cuántos usuarios con tareas y cuántas tareas guarda cada shard
+public record EstadoShard(int shard, boolean activo, long usuarios, long tareas) {
+}
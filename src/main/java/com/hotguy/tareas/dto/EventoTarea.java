@@ -0,0 +1,28 @@
+package com.hotguy.tareas.dto;
+
+// Evento del canal SSE de /api/tasks/events. "secuencia" es la misma que usa /api/tasks/changes
+public record EventoTarea(String tipo, Long id, TareaView tarea, long secuencia) {
+
+    public static final String CREADA = "creada";
+    public static final String ACTUALIZADA = "actualizada";
+    public static final String ELIMINADA = "eliminada";
+    // El cliente iba tan atrasado que se descartaron sus eventos pendientes: debe pedir /api/tasks/changes
+    public static final String RESINCRONIZAR = "resync";
+
+    public static EventoTarea creada(TareaView tarea, long secuencia) {
+        return new EventoTarea(CREADA, tarea.id(), tarea, secuencia);
+    }
+
+    public static EventoTarea actualizada(TareaView tarea, long secuencia) {
+        return new EventoTarea(ACTUALIZADA, tarea.id(), tarea, secuencia);
+    }
+
+    public static EventoTarea eliminada(Long id, long secuencia) {
+        return new EventoTarea(ELIMINADA, id, null, secuencia);
+    }
+
+    // Cambios en bloque (importación, archivado): en lugar de un evento por tarea se pide al cliente que sincronice
+    public static EventoTarea resincronizar(long secuencia) {
+        return new EventoTarea(RESINCRONIZAR, null, null, secuencia);
+    }
+}
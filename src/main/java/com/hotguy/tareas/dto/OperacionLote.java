@@ -0,0 +1,63 @@
+package com.hotguy.tareas.dto;
+
+// Una operación dentro de un lote: qué hacer y sobre qué tarea (id null al crear)
+public class OperacionLote {
+
+    public enum Tipo { CREAR, EDITAR, ALTERNAR, ELIMINAR }
+
+    private Tipo tipo;
+    private Long id;
+    private String titulo;
+    private String descripcion;
+    private Boolean completada;
+    private Long version; // Opcional en EDITAR: versión que el cliente leyó
+
+    // Getters y setters
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(Tipo tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public void setTitulo(String titulo) {
+        this.titulo = titulo;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public void setDescripcion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public Boolean getCompletada() {
+        return completada;
+    }
+
+    public void setCompletada(Boolean completada) {
+        this.completada = completada;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,7 @@
+package com.hotguy.tareas.dto;
+
+import java.util.List;
+
+// Una página de tareas y el cursor opaco para pedir la siguiente (null si no hay más)
+public record PaginaTareas(List<TareaView> tareas, String siguienteCursor) {
+}
@@ -0,0 +1,13 @@
+package com.hotguy.tareas.dto;
+
+import java.util.List;
+
+// Estado de una importación masiva: "importadas" solo cuenta tareas ya confirmadas en la BD.
+// "rechazos" detalla como mucho importacion.max-rechazos-informe filas; "rechazadas" es el total
+public record ProgresoImportacion(boolean terminada, long leidas, long importadas, long rechazadas,
+                                  List<FilaRechazada> rechazos) {
+
+    // "linea" es la línea del fichero en la que empieza la fila (la cabecera CSV es la 1)
+    public record FilaRechazada(long linea, String error) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.hotguy.tareas.dto;
+
+// Resultado de cada operación del lote, en el mismo orden en que llegaron (estado = código HTTP equivalente)
+public record ResultadoOperacion(int indice, OperacionLote.Tipo tipo, int estado, Long id, Long version, String error) {
+
+    public static ResultadoOperacion ok(int indice, OperacionLote.Tipo tipo, int estado, Long id, Long version) {
+        return new ResultadoOperacion(indice, tipo, estado, id, version, null);
+    }
+
+    public static ResultadoOperacion error(int indice, OperacionLote.Tipo tipo, int estado, Long id, String error) {
+        return new ResultadoOperacion(indice, tipo, estado, id, null, error);
+    }
+}
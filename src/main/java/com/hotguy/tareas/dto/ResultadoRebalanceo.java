@@ -0,0 +1,5 @@
+package com.hotguy.tareas.dto;
+
+// Respuesta de POST /api/admin/shards/rebalance. "activos" es el valor que hay que poner en shards.activos
+public record ResultadoRebalanceo(int shardNuevo, int activos, long usuariosMovidos, long tareasMovidas) {
+}
@@ -4,6 +4,7 @@ public class TareaRequest {
     private String titulo;
     private String descripcion;
     private Boolean completada; // true o false (o null si no se quiere modificar)
+    private Long version; // Versión que el cliente leyó (o null para no comprobarla)
 
     // Getters y setters
     public String getTitulo() {
@@ -29,4 +30,12 @@ public class TareaRequest {
     public void setCompletada(Boolean completada) {
         this.completada = completada;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
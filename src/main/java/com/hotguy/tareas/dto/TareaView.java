@@ -0,0 +1,21 @@
+package com.hotguy.tareas.dto;
+
+import com.hotguy.tareas.model.Tarea;
+
+import java.time.LocalDateTime;
+
+// Proyección de solo lectura para listar: mismos campos JSON que Tarea pero sin entidad gestionada ni Usuario
+public record TareaView(
+        Long id,
+        String titulo,
+        String descripcion,
+        boolean completada,
+        LocalDateTime fechaCreacion,
+        LocalDateTime fechaActualizacion,
+        long version
+) {
+    public static TareaView de(Tarea tarea) {
+        return new TareaView(tarea.getId(), tarea.getTitulo(), tarea.getDescripcion(), tarea.isCompletada(),
+                tarea.getFechaCreacion(), tarea.getFechaActualizacion(), tarea.getVersion());
+    }
+}
@@ -0,0 +1,23 @@
+package com.hotguy.tareas.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Versión de las tareas de un usuario: cualquier alta, cambio o borrado altera el total o la última actualización
+public record VersionColeccion(long total, LocalDateTime ultimaActualizacion) {
+
+    // La misma versión calculada a partir de la lista completa ya leída, sin otra consulta
+    public static VersionColeccion de(List<TareaView> tareas) {
+        LocalDateTime ultima = null;
+        for (TareaView tarea : tareas) {
+            if (tarea.fechaActualizacion() != null && (ultima == null || tarea.fechaActualizacion().isAfter(ultima))) {
+                ultima = tarea.fechaActualizacion();
+            }
+        }
+        return new VersionColeccion(tareas.size(), ultima);
+    }
+
+    public String etag() {
+        return "W/\"" + total + "-" + (ultimaActualizacion == null ? "0" : ultimaActualizacion) + "\"";
+    }
+}
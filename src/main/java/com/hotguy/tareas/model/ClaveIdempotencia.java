@@ -0,0 +1,72 @@
+package com.hotguy.tareas.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Reserva (y después respuesta guardada) de una Idempotency-Key; solo se usa con idempotencia.persistente=true
+@Entity
+@Table(name = "claves_idempotencia")
+public class ClaveIdempotencia implements Persistable<String> {
+
+    @Id
+    private String id; // SHA-256 de usuario + clave: longitud fija y sin datos del cliente en el índice
+
+    private String huella; // SHA-256 de método, ruta y cuerpo: la misma clave con otra petición es un error
+
+    private Integer estado; // null mientras la primera petición está en curso
+
+    private String tipoContenido;
+
+    @Lob
+    @Column(length = 16_777_215) // MEDIUMBLOB en MySQL
+    private byte[] cuerpo;
+
+    private LocalDateTime fechaExpiracion;
+
+    // Constructor vacío (requerido por JPA)
+    protected ClaveIdempotencia() {
+    }
+
+    public ClaveIdempotencia(String id, String huella, LocalDateTime fechaExpiracion) {
+        this.id = id;
+        this.huella = huella;
+        this.fechaExpiracion = fechaExpiracion;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    // Solo se insertan reservas: si la clave ya existe el INSERT falla por la clave primaria (y así se detecta)
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public String getHuella() {
+        return huella;
+    }
+
+    public Integer getEstado() {
+        return estado;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public byte[] getCuerpo() {
+        return cuerpo;
+    }
+
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+}
@@ -1,9 +1,13 @@
 package com.hotguy.tareas.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hotguy.tareas.config.CacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -11,10 +15,14 @@ import java.time.LocalDateTime;
 
 @Entity // Marca esta clase como una entidad JPA (tabla en la BD)
 @Table(name = "tareas") // (Opcional) nombre de la tabla
+@Cacheable // Caché de segundo nivel por id; tras las UPDATE del repositorio el servicio expulsa solo esa tarea
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_TAREAS)
 public class Tarea {
 
     @Id // Marca este campo como clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // El valor se genera automáticamente (auto-incremento)
+    // Secuencia "pooled" (50 ids por viaje a la BD): IDENTITY desactivaría los INSERT en lote de Hibernate
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tareas_seq")
+    @SequenceGenerator(name = "tareas_seq", sequenceName = "tareas_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "La descripción no puede estar vacía")
@@ -33,8 +41,14 @@ public class Tarea {
     @UpdateTimestamp // Se actualiza automáticamente al modificar
     private LocalDateTime fechaActualizacion;
 
-    @ManyToOne
-    @JoinColumn(name = "usuario_id") // clave foránea
+    @Version // Bloqueo optimista: cada modificación incrementa la versión
+    private long version;
+
+    @JsonIgnore // Dato interno de /api/tasks/changes: número de cambio (por usuario) de la última modificación
+    private long secuenciaCambio;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false) // Sin LAZY cada tarea cargada arrastraría su Usuario
+    @JoinColumn(name = "usuario_id", nullable = false) // clave foránea (obligatoria: las consultas por username usan INNER JOIN)
     @JsonBackReference
     private Usuario usuario;
 
@@ -85,6 +99,18 @@ public class Tarea {
         return fechaActualizacion;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public long getSecuenciaCambio() {
+        return secuenciaCambio;
+    }
+
+    public void setSecuenciaCambio(long secuenciaCambio) {
+        this.secuenciaCambio = secuenciaCambio;
+    }
+
     public Usuario getUsuario() {
         return usuario;
     }
@@ -0,0 +1,52 @@
+package com.hotguy.tareas.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+// Tarea completada y antigua que el archivador sacó de "tareas". Solo la escribe él (con SQL): aquí es de lectura
+@Entity
+@Immutable
+@Table(name = "tareas_archivo")
+public class TareaArchivada {
+
+    @Id
+    private Long id; // El mismo id que tenía en "tareas"
+
+    private String titulo;
+
+    private String descripcion;
+
+    private boolean completada;
+
+    private LocalDateTime fechaCreacion;
+
+    private LocalDateTime fechaActualizacion;
+
+    private long version;
+
+    private Long usuarioId;
+
+    private long secuenciaCambio;
+
+    private LocalDateTime fechaArchivado;
+
+    // Constructor vacío (requerido por JPA)
+    protected TareaArchivada() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public LocalDateTime getFechaArchivado() {
+        return fechaArchivado;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hotguy.tareas.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Lápida de una tarea borrada: /api/tasks/changes la devuelve para que el cliente también borre su copia
+@Entity
+@Table(name = "tareas_eliminadas")
+public class TareaEliminada implements Persistable<Long> {
+
+    @Id
+    private Long tareaId; // El id de la tarea borrada (los ids no se reutilizan)
+
+    private Long usuarioId;
+
+    private long secuenciaCambio;
+
+    private LocalDateTime fechaEliminacion;
+
+    // Constructor vacío (requerido por JPA)
+    protected TareaEliminada() {
+    }
+
+    public TareaEliminada(Long tareaId, Long usuarioId, long secuenciaCambio, LocalDateTime fechaEliminacion) {
+        this.tareaId = tareaId;
+        this.usuarioId = usuarioId;
+        this.secuenciaCambio = secuenciaCambio;
+        this.fechaEliminacion = fechaEliminacion;
+    }
+
+    @Override
+    public Long getId() {
+        return tareaId;
+    }
+
+    // Solo se insertan: así save() hace persist directamente en vez de un SELECT previo por el id asignado
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public long getSecuenciaCambio() {
+        return secuenciaCambio;
+    }
+
+    public LocalDateTime getFechaEliminacion() {
+        return fechaEliminacion;
+    }
+}
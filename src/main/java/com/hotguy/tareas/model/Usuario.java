@@ -1,24 +1,38 @@
 package com.hotguy.tareas.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.hotguy.tareas.config.CacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.List;
 
 @Entity
 @Table(name = "usuarios")
+@Cacheable // Caché de segundo nivel: por id y, vía @NaturalIdCache, por username
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_USUARIOS)
+@NaturalIdCache(region = CacheConfig.REGION_USUARIOS_NATURAL_ID)
+@DynamicUpdate // Un cambio de rol no debe reescribir secuenciaCambios (la incrementan otras transacciones con la fila bloqueada)
 public class Usuario {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId // Inmutable: findByUsername se resuelve con la caché de natural id
+    @Column(nullable = false, unique = true) // Índice único ux_usuarios_username (migración V2)
     private String username;
 
     private String password; // Ya cifrada
 
     private String rol; // por ejemplo: "USER" o "ADMIN"
 
+    private long secuenciaCambios; // Último número de cambio asignado a sus tareas (sincronización por deltas)
+
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL)
     @JsonManagedReference
     private List<Tarea> tareas;
@@ -56,6 +70,14 @@ public class Usuario {
         this.rol = rol;
     }
 
+    public long getSecuenciaCambios() {
+        return secuenciaCambios;
+    }
+
+    public void setSecuenciaCambios(long secuenciaCambios) {
+        this.secuenciaCambios = secuenciaCambios;
+    }
+
     public List<Tarea> getTareas() {
         return tareas;
     }
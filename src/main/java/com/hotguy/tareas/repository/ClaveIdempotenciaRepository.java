@@ -0,0 +1,39 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.model.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository // Indica que esta interfaz es un repositorio
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    // Convierte la reserva en la respuesta guardada y alarga su vida hasta el TTL
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClaveIdempotencia c SET c.estado = :estado, c.tipoContenido = :tipoContenido, c.cuerpo = :cuerpo, " +
+            "c.fechaExpiracion = :expiracion WHERE c.id = :id")
+    int guardarRespuesta(@Param("id") String id, @Param("estado") int estado, @Param("tipoContenido") String tipoContenido,
+                         @Param("cuerpo") byte[] cuerpo, @Param("expiracion") LocalDateTime expiracion);
+
+    // La primera petición falló (5xx o excepción): se quita la reserva para que un reintento vuelva a ejecutarse
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.id = :id AND c.estado IS NULL")
+    int liberar(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.id = :id AND c.fechaExpiracion < :ahora")
+    int borrarSiCaducada(@Param("id") String id, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.fechaExpiracion < :ahora")
+    int purgar(@Param("ahora") LocalDateTime ahora);
+}
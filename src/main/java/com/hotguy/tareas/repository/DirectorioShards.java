@@ -0,0 +1,216 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.config.EnrutadorDataSource;
+import com.hotguy.tareas.config.NodosShard;
+import com.hotguy.tareas.config.ShardsProperties;
+import com.hotguy.tareas.dto.EstadoShard;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Decide en qué shard están las tareas de cada usuario: hash consistente "jump" de usuario_id entre los
+// shards activos. Los repositorios de tareas (TareaRepository, TareaEliminadaRepository) no cambian: el servicio
+// fija el shard al empezar la transacción y el enrutador manda ahí todas sus sentencias. Una transacción
+// solo toca un shard. Los usuarios siguen en el shard 0 (directorio); cada shard guarda además una copia de la
+// fila de los usuarios que aloja, para la clave foránea y para bloquearla (su secuencia_cambios es la que vale).
+// La copia solo lleva id, username y secuencia_cambios: password y rol se leen siempre del directorio
+@Component
+public class DirectorioShards {
+
+    private static final int MAX_USUARIOS_CACHEADOS = 100_000; // Por encima se vacían (se vuelven a consultar)
+
+    private final ShardsProperties properties;
+    private final NodosShard nodos; // null sin sharding
+    private final List<JdbcTemplate> jdbc = new ArrayList<>();
+    private final ExecutorService consultas;
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>(); // username -> id (el username no cambia)
+    private final Set<Long> copiados = ConcurrentHashMap.newKeySet(); // Usuarios con su fila ya en su shard
+    private final Map<Long, Integer> movidos = new ConcurrentHashMap<>(); // Durante un rebalanceo: id -> shard nuevo
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DirectorioShards(ShardsProperties properties, ObjectProvider<NodosShard> nodos) {
+        this.properties = properties;
+        this.nodos = nodos.getIfAvailable();
+        if (this.nodos == null) {
+            this.consultas = null;
+            return;
+        }
+        for (int shard = 0; shard < this.nodos.total(); shard++) {
+            jdbc.add(new JdbcTemplate(this.nodos.nodo(shard)));
+        }
+        AtomicInteger contador = new AtomicInteger();
+        this.consultas = Executors.newFixedThreadPool(Math.max(1, properties.getHilosConsulta()), r -> {
+            Thread hilo = new Thread(r, "shards-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (consultas != null) consultas.shutdown();
+    }
+
+    public boolean habilitado() {
+        return nodos != null;
+    }
+
+    // Nodos configurados, activos o no (sin sharding, 1)
+    public int numero() {
+        return nodos == null ? 1 : nodos.total();
+    }
+
+    public int activos() {
+        return nodos == null ? 1 : Math.max(1, Math.min(properties.getActivos(), nodos.total()));
+    }
+
+    public int shardDe(long usuarioId) {
+        Integer movido = movidos.get(usuarioId);
+        return movido != null ? movido : jump(usuarioId, activos());
+    }
+
+    // Lamping y Veach: al pasar de n a n+1 cubos solo cambia de cubo ~1/(n+1) de las claves, y todas al nuevo
+    public static int jump(long clave, int cubos) {
+        long b = -1;
+        long j = 0;
+        while (j < cubos) {
+            b = j;
+            clave = clave * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((clave >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    // Si el usuario no existe no se fija nada: la transacción sigue en el directorio y dará 404 como siempre
+    public void fijar(String username) {
+        if (nodos == null) return;
+        Long id = ids.get(username);
+        if (id == null) {
+            id = jdbc.get(0).queryForList("SELECT id FROM usuarios WHERE username = ?", Long.class, username)
+                    .stream().findFirst().orElse(null);
+            if (id == null) return;
+            if (ids.size() >= MAX_USUARIOS_CACHEADOS) ids.clear();
+            ids.put(username, id);
+        }
+        fijarUsuario(id);
+    }
+
+    public void fijarUsuario(long usuarioId) {
+        if (nodos == null) return;
+        int shard = shardDe(usuarioId);
+        copiarUsuario(usuarioId, shard);
+        fijarShard(shard);
+    }
+
+    // Un ADMIN borra por id sin saber de quién es (activa o archivada): se pregunta a todos los shards a la vez
+    public void fijarPorTarea(long tareaId) {
+        if (nodos == null) return;
+        enTodos(j -> j.queryForList("SELECT usuario_id FROM tareas WHERE id = ? UNION ALL "
+                + "SELECT usuario_id FROM tareas_archivo WHERE id = ?", Long.class, tareaId, tareaId))
+                .stream().flatMap(List::stream).findFirst()
+                .ifPresent(this::fijarUsuario);
+    }
+
+    // Debe llamarse dentro de la transacción y antes de su primera sentencia
+    public void fijarShard(int shard) {
+        if (nodos == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El shard se fija dentro de una transacción");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                EnrutadorDataSource.liberarShard();
+            }
+        });
+        EnrutadorDataSource.fijarShard(shard);
+        if (shard > 0) {
+            // Un Usuario leído de la copia del shard (sin password ni rol) no debe llegar a la caché de segundo nivel
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        }
+    }
+
+    // Tras bloquear al usuario: si un rebalanceo lo movió mientras se esperaba el bloqueo, esta transacción
+    // está en el shard antiguo y no debe escribir
+    public boolean enSuShard(long usuarioId) {
+        if (nodos == null) return true;
+        Integer actual = EnrutadorDataSource.shardActual();
+        return actual == null || actual == shardDe(usuarioId);
+    }
+
+    // Ejecuta la consulta en todos los nodos en paralelo (fuera de la transacción en curso); un resultado por shard
+    public <T> List<T> enTodos(Function<JdbcTemplate, T> consulta) {
+        if (nodos == null) throw new IllegalStateException("Sharding deshabilitado");
+        List<CompletableFuture<T>> pendientes = new ArrayList<>();
+        for (JdbcTemplate nodo : jdbc) {
+            pendientes.add(CompletableFuture.supplyAsync(() -> consulta.apply(nodo), consultas));
+        }
+        return pendientes.stream().map(CompletableFuture::join).toList();
+    }
+
+    public List<EstadoShard> estado() {
+        List<long[]> cuentas = enTodos(j -> j.queryForObject(
+                "SELECT COUNT(DISTINCT usuario_id), COUNT(*) FROM tareas",
+                (rs, fila) -> new long[]{rs.getLong(1), rs.getLong(2)}));
+        List<EstadoShard> estado = new ArrayList<>();
+        for (int shard = 0; shard < cuentas.size(); shard++) {
+            estado.add(new EstadoShard(shard, shard < activos(), cuentas.get(shard)[0], cuentas.get(shard)[1]));
+        }
+        return estado;
+    }
+
+    // Para el rebalanceador: acceso directo a cada nodo, sin transacción ni enrutador
+    public DataSource nodo(int shard) {
+        return nodos.nodo(shard);
+    }
+
+    public void marcarMovido(long usuarioId, int shard) {
+        movidos.put(usuarioId, shard);
+        copiados.add(usuarioId);
+    }
+
+    public void completarRebalanceo(int activos) {
+        properties.setActivos(activos);
+        movidos.clear();
+    }
+
+    // La copia de la fila en el shard se crea la primera vez que el usuario lo usa (registro, admin inicial...)
+    private void copiarUsuario(long usuarioId, int shard) {
+        if (shard == 0 || copiados.contains(usuarioId)) return;
+        JdbcTemplate destino = jdbc.get(shard);
+        Integer hay = destino.queryForObject("SELECT COUNT(*) FROM usuarios WHERE id = ?", Integer.class, usuarioId);
+        if (hay == null || hay == 0) {
+            String username = jdbc.get(0).queryForObject("SELECT username FROM usuarios WHERE id = ?", String.class, usuarioId);
+            try {
+                destino.update("INSERT INTO usuarios (id, username, secuencia_cambios) VALUES (?, ?, 0)", usuarioId, username);
+            } catch (DuplicateKeyException e) {
+                // Otra petición del mismo usuario la copió a la vez
+            }
+        }
+        if (copiados.size() >= MAX_USUARIOS_CACHEADOS) copiados.clear();
+        copiados.add(usuarioId);
+    }
+}
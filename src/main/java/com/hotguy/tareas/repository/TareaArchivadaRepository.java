@@ -0,0 +1,42 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.model.TareaArchivada;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository // Indica que esta interfaz es un repositorio
+public interface TareaArchivadaRepository extends JpaRepository<TareaArchivada, Long> {
+
+    // Mismo JSON que las tareas activas; por el índice (usuario_id, fecha_creacion)
+    @Query("""
+            SELECT new com.hotguy.tareas.dto.TareaView(a.id, a.titulo, a.descripcion, a.completada,
+                                                       a.fechaCreacion, a.fechaActualizacion, a.version)
+            FROM TareaArchivada a
+            WHERE a.usuarioId = (SELECT u.id FROM Usuario u WHERE u.username = :username)
+            """)
+    List<TareaView> findVistasByUsername(@Param("username") String username, Sort sort);
+
+    // Exportación con incluirArchivadas: el mismo cursor de solo avance que TareaRepository.streamByUsuarioUsernameOrderById
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TareaRepository.FILAS_POR_LECTURA),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.hotguy.tareas.dto.TareaView(a.id, a.titulo, a.descripcion, a.completada,
+                                                       a.fechaCreacion, a.fechaActualizacion, a.version)
+            FROM TareaArchivada a
+            WHERE a.usuarioId = (SELECT u.id FROM Usuario u WHERE u.username = :username)
+            ORDER BY a.id
+            """)
+    Stream<TareaView> streamVistasByUsername(@Param("username") String username);
+}
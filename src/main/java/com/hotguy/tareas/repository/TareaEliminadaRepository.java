@@ -0,0 +1,23 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.model.TareaEliminada;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository // Indica que esta interfaz es un repositorio
+public interface TareaEliminadaRepository extends JpaRepository<TareaEliminada, Long> {
+
+    List<TareaEliminada> findByUsuarioIdAndSecuenciaCambioBetweenOrderBySecuenciaCambio(Long usuarioId, long desde, long hasta, Limit limit);
+
+    // Compactación: las lápidas más antiguas que la retención ya no las necesita ninguna marca válida
+    @Modifying
+    @Query("DELETE FROM TareaEliminada e WHERE e.fechaEliminacion < :limite")
+    int compactar(@Param("limite") LocalDateTime limite);
+}
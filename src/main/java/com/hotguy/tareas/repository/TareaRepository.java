@@ -1,12 +1,27 @@
 package com.hotguy.tareas.repository;
 
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.dto.VersionColeccion;
 import com.hotguy.tareas.model.Tarea;
 import com.hotguy.tareas.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository // Indica que esta interfaz es un repositorio
 public interface TareaRepository extends JpaRepository<Tarea, Long> {
@@ -14,4 +29,78 @@ public interface TareaRepository extends JpaRepository<Tarea, Long> {
     List<Tarea> findByUsuario(Usuario usuario, Sort sort);
 
     List<Tarea> findByUsuarioAndCompletada(Usuario usuario, boolean completada, Sort sort);
-}
\ No newline at end of file
+
+    // Lectura para listar: proyección a TareaView filtrando por username, una sola SELECT y sin entidades
+    List<TareaView> findByUsuarioUsername(String username, Sort sort);
+
+    List<TareaView> findByUsuarioUsernameAndCompletada(String username, boolean completada, Sort sort);
+
+    // Paginación por cursor (keyset): Spring Data añade el id al orden y filtra con "WHERE (claves) > (cursor)"
+    Window<TareaView> findByUsuarioUsername(String username, ScrollPosition posicion, Sort sort, Limit limit);
+
+    Window<TareaView> findByUsuarioUsernameAndCompletada(String username, boolean completada, ScrollPosition posicion, Sort sort, Limit limit);
+
+    Optional<TareaView> findVistaById(Long id);
+
+    int FILAS_POR_LECTURA = 1000;
+
+    // Exportación: cursor JDBC de solo avance que trae las filas de FILAS_POR_LECTURA en FILAS_POR_LECTURA; como son
+    // proyecciones, nada entra en el contexto de persistencia. Hay que consumirlo dentro de una transacción y cerrarlo
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + FILAS_POR_LECTURA),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<TareaView> streamByUsuarioUsernameOrderById(String username);
+
+    List<Tarea> findByIdInAndUsuarioUsername(Collection<Long> ids, String username);
+
+    boolean existsByIdAndUsuarioUsername(Long id, String username);
+
+    // Sincronización por deltas: solo las tareas cambiadas en (desde, hasta], por el índice (usuario_id, secuencia_cambio)
+    List<Tarea> findByUsuarioIdAndSecuenciaCambioBetweenOrderBySecuenciaCambio(Long usuarioId, long desde, long hasta, Limit limit);
+
+    // Validador de la colección para el ETag: solo lee el índice (usuario_id, fecha_actualizacion)
+    @Query("""
+            SELECT new com.hotguy.tareas.dto.VersionColeccion(COUNT(t), MAX(t.fechaActualizacion))
+            FROM Tarea t
+            WHERE t.usuario.username = :username
+            """)
+    VersionColeccion obtenerVersionColeccion(@Param("username") String username);
+
+    // Las dos UPDATE siguientes son SQL nativo con un espacio de consulta propio: una UPDATE JPQL sobre Tarea vacía
+    // entera la región de caché de tareas, así Hibernate no toca la caché y el servicio expulsa solo la tarea cambiada
+    String ESPACIO_UPDATE_POR_ID = "tareas_update_por_id";
+
+    // Una sola UPDATE atómica: invierte el estado solo si la tarea es del usuario
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACIO_UPDATE_POR_ID))
+    @Query(nativeQuery = true, value = """
+            UPDATE tareas
+            SET completada = CASE WHEN completada = TRUE THEN FALSE ELSE TRUE END,
+                version = version + 1,
+                secuencia_cambio = :secuencia,
+                fecha_actualizacion = :ahora
+            WHERE id = :id
+              AND usuario_id = (SELECT u.id FROM usuarios u WHERE u.username = :username)
+            """)
+    int alternarCompletada(@Param("id") Long id, @Param("username") String username,
+                           @Param("secuencia") long secuencia, @Param("ahora") LocalDateTime ahora);
+
+    // Edición parcial atómica: los campos null no cambian y, si llega versión, debe coincidir con la actual
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACIO_UPDATE_POR_ID))
+    @Query(nativeQuery = true, value = """
+            UPDATE tareas
+            SET descripcion = COALESCE(:descripcion, descripcion),
+                completada = COALESCE(:completada, completada),
+                version = version + 1,
+                secuencia_cambio = :secuencia,
+                fecha_actualizacion = :ahora
+            WHERE id = :id
+              AND usuario_id = (SELECT u.id FROM usuarios u WHERE u.username = :username)
+              AND (:version IS NULL OR version = :version)
+            """)
+    int editar(@Param("id") Long id, @Param("username") String username,
+               @Param("descripcion") String descripcion, @Param("completada") Boolean completada,
+               @Param("version") Long version, @Param("secuencia") long secuencia, @Param("ahora") LocalDateTime ahora);
+}
@@ -1,12 +1,30 @@
 package com.hotguy.tareas.repository;
 
 import com.hotguy.tareas.model.Usuario;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository // Indica que esta interfaz es un repositorio
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-    Optional<Usuario> findByUsername(String username);
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, UsuarioRepositoryCustom {
+    // findByUsername lo implementa UsuarioRepositoryCustomImpl (natural id cacheado)
+
+    // SELECT ... FOR UPDATE: las escrituras de tareas de un mismo usuario se serializan hasta el commit,
+    // así la secuencia de cambios sigue el orden de commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM Usuario u WHERE u.username = :username")
+    Optional<Usuario> bloquearPorUsername(@Param("username") String username);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM Usuario u WHERE u.id = :id")
+    Optional<Usuario> bloquearPorId(@Param("id") Long id);
+
+    // Siempre a la BD (nunca de la caché): el valor confirmado marca hasta dónde es seguro leer cambios
+    @Query("SELECT u.secuenciaCambios FROM Usuario u WHERE u.id = :id")
+    Long obtenerSecuenciaCambios(@Param("id") Long id);
 }
\ No newline at end of file
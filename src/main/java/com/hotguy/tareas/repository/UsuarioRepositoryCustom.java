@@ -0,0 +1,11 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.model.Usuario;
+
+import java.util.Optional;
+
+// Consultas de usuarios que no se pueden expresar como métodos derivados
+public interface UsuarioRepositoryCustom {
+    // Búsqueda por natural id: pasa por la caché de segundo nivel en lugar de lanzar una SELECT
+    Optional<Usuario> findByUsername(String username);
+}
@@ -0,0 +1,24 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.model.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class UsuarioRepositoryCustomImpl implements UsuarioRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Usuario> findByUsername(String username) {
+        // Una consulta JPQL "WHERE username = ?" nunca usa la caché de entidades; bySimpleNaturalId sí
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Usuario.class)
+                .loadOptional(username);
+    }
+}
@@ -0,0 +1,79 @@
+package com.hotguy.tareas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Caché acotada de tokens ya verificados, indexada por el hash SHA-256 del token (nunca guardamos el token).
+// Caffeine expulsa en O(1) al llenarse y cada entrada caduca sola cuando expira su token: no hay barridos del mapa
+public class CacheTokens {
+
+    private final int maxEntradas;
+    private final Cache<String, TokenVerificado> entradas;
+
+    public CacheTokens(int maxEntradas) {
+        this.maxEntradas = maxEntradas;
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxEntradas, 0))
+                .expireAfter(new Expiry<String, TokenVerificado>() {
+                    @Override
+                    public long expireAfterCreate(String clave, TokenVerificado verificado, long ahoraNanos) {
+                        long restante = Math.max(verificado.expiraEnMillis() - System.currentTimeMillis(), 0);
+                        return TimeUnit.MILLISECONDS.toNanos(restante);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String clave, TokenVerificado verificado, long ahoraNanos, long duracionActual) {
+                        return expireAfterCreate(clave, verificado, ahoraNanos);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String clave, TokenVerificado verificado, long ahoraNanos, long duracionActual) {
+                        return duracionActual;
+                    }
+                })
+                .build();
+    }
+
+    public TokenVerificado obtener(String token, long ahoraMillis) {
+        if (maxEntradas <= 0) return null;
+
+        String clave = hash(token);
+        TokenVerificado verificado = entradas.getIfPresent(clave);
+        if (verificado != null && verificado.estaExpirado(ahoraMillis)) {
+            entradas.asMap().remove(clave, verificado); // Caducado: fuera de la caché
+            return null;
+        }
+        return verificado;
+    }
+
+    public void guardar(String token, TokenVerificado verificado, long ahoraMillis) {
+        if (maxEntradas <= 0 || verificado.estaExpirado(ahoraMillis)) return;
+        entradas.put(hash(token), verificado);
+    }
+
+    public void invalidar(String token) {
+        entradas.invalidate(hash(token));
+    }
+
+    public int size() {
+        entradas.cleanUp(); // La expulsión es diferida: se aplica antes de contar
+        return (int) entradas.estimatedSize();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
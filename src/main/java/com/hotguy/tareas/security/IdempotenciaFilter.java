@@ -0,0 +1,192 @@
+package com.hotguy.tareas.security;
+
+import com.hotguy.tareas.controller.ApiPaths;
+import com.hotguy.tareas.service.AlmacenIdempotencia;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Idempotency-Key en las escrituras de /api/tasks/**: un reintento con la misma clave (mismo usuario) recibe la
+// respuesta de la primera petición en lugar de ejecutarse otra vez. Se registra como filtro de servlet normal,
+// así corre después de la cadena de Spring Security y ya conoce al usuario autenticado
+@Component
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+    public static final int LONGITUD_MAXIMA = 255;
+
+    private final AlmacenIdempotencia almacen;
+
+    public IdempotenciaFilter(AlmacenIdempotencia almacen) {
+        this.almacen = almacen;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String metodo = request.getMethod();
+        return request.getHeader(CABECERA) == null
+                || !request.getRequestURI().startsWith(ApiPaths.TAREAS + "/")
+                // La importación se lee en streaming: guardar su cuerpo y su respuesta anularía eso
+                || request.getRequestURI().equals(ApiPaths.TAREAS + ApiPaths.TareaPaths.IMPORTAR)
+                || HttpMethod.GET.matches(metodo) || HttpMethod.HEAD.matches(metodo) || HttpMethod.OPTIONS.matches(metodo);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response); // Sin usuario no hay ámbito para la clave
+            return;
+        }
+
+        String clave = request.getHeader(CABECERA);
+        if (clave.isBlank() || clave.length() > LONGITUD_MAXIMA) {
+            responder(response, HttpServletResponse.SC_BAD_REQUEST, CABECERA + " debe tener entre 1 y " + LONGITUD_MAXIMA + " caracteres");
+            return;
+        }
+
+        // El cuerpo se lee una vez: entra en la huella y se vuelve a servir al controlador
+        byte[] cuerpo = request.getInputStream().readAllBytes();
+        String huella = huella(request, cuerpo);
+
+        AlmacenIdempotencia.Reserva reserva = almacen.reservar(auth.getName(), clave, huella);
+        switch (reserva.tipo()) {
+            case REPETIDA -> repetir(response, reserva.respuesta());
+            case HUELLA_DISTINTA -> responder(response, 422, CABECERA + " ya usada con otra petición");
+            case EN_CURSO -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                responder(response, HttpServletResponse.SC_CONFLICT, "La petición original con esta " + CABECERA + " sigue en curso");
+            }
+            case NUEVA -> ejecutar(new CuerpoLeido(request, cuerpo), response, filterChain, reserva.id());
+        }
+    }
+
+    private void ejecutar(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, String id)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper captura = new ContentCachingResponseWrapper(response);
+        boolean completada = false;
+        try {
+            filterChain.doFilter(request, captura);
+            // Un 5xx no se guarda: puede ser transitorio y el reintento debe poder ejecutarse
+            if (captura.getStatus() < 500) {
+                almacen.completar(id, new AlmacenIdempotencia.Respuesta(
+                        captura.getStatus(), captura.getContentType(), captura.getContentAsByteArray()));
+                completada = true;
+            }
+        } finally {
+            if (!completada) almacen.liberar(id);
+            captura.copyBodyToResponse();
+        }
+    }
+
+    private static void repetir(HttpServletResponse response, AlmacenIdempotencia.Respuesta respuesta) throws IOException {
+        response.setStatus(respuesta.estado());
+        response.setHeader(CABECERA_REPETIDA, "true");
+        if (respuesta.tipoContenido() != null) response.setContentType(respuesta.tipoContenido());
+        if (respuesta.cuerpo() != null && respuesta.cuerpo().length > 0) {
+            response.setContentLength(respuesta.cuerpo().length);
+            response.getOutputStream().write(respuesta.cuerpo());
+        }
+    }
+
+    private static void responder(HttpServletResponse response, int estado, String mensaje) throws IOException {
+        response.setStatus(estado);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(mensaje);
+    }
+
+    // Método, ruta (con query) y cuerpo: reutilizar la clave para otra operación se detecta y se rechaza
+    private static String huella(HttpServletRequest request, byte[] cuerpo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String query = request.getQueryString();
+            digest.update((request.getMethod() + ' ' + request.getRequestURI() + (query == null ? "" : '?' + query) + '\n')
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(cuerpo);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Petición con el cuerpo ya leído en memoria
+    private static final class CuerpoLeido extends HttpServletRequestWrapper {
+        private final byte[] cuerpo;
+
+        CuerpoLeido(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Lectura asíncrona: el cuerpo ya está entero en memoria, así que se avisa enseguida de que hay datos
+                // y, cuando el listener los ha consumido, de que no quedan más
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) readListener.onDataAvailable();
+                        if (isFinished()) readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.hotguy.tareas.security;
 
 import com.hotguy.tareas.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,22 +10,43 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    // Atributo de la petición donde queda el token ya verificado para el resto de la app
+    public static final String ATRIBUTO_TOKEN = "jwt.verificado";
+
     private final JwtUtil jwtUtil;
     private final UsuarioService usuarioService;
+    private final JwtProperties jwtProperties;
+    private final MarcasCambioRol marcasCambioRol;
+    private final Timer tiempoValido;
+    private final Timer tiempoInvalido;
 
-    public JwtFilter(JwtUtil jwtUtil, UsuarioService usuarioService) {
+    public JwtFilter(JwtUtil jwtUtil, UsuarioService usuarioService, JwtProperties jwtProperties, MarcasCambioRol marcasCambioRol, MeterRegistry registry) {
         this.jwtUtil = jwtUtil;
         this.usuarioService = usuarioService;
+        this.jwtProperties = jwtProperties;
+        this.marcasCambioRol = marcasCambioRol;
+        this.tiempoValido = tiempoVerificacion(registry, "valido");
+        this.tiempoInvalido = tiempoVerificacion(registry, "invalido");
+    }
+
+    private static Timer tiempoVerificacion(MeterRegistry registry, String resultado) {
+        return Timer.builder("jwt.verificacion")
+                .description("Tiempo de verificar el JWT en JwtFilter (incluye aciertos de caché)")
+                .tag("resultado", resultado)
+                .register(registry);
     }
 
     @Override
@@ -72,19 +95,21 @@ public class JwtFilter extends OncePerRequestFilter {
 //        filterChain.doFilter(request, response);
 //        try {
         String token = obtenerToken(request);
-        if (token != null) {
-            String username = jwtUtil.extraerUsername(token); // esto lanza si el token está caducado
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = usuarioService.loadUserByUsername(username);
-
-                if (jwtUtil.validarToken(token, username)) {
-                    UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities()
-                    );
-                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-                }
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Firma y expiración se comprueban una sola vez (o ninguna si el token ya está en caché)
+            long inicio = System.nanoTime();
+            Optional<TokenVerificado> verificado = jwtUtil.verificar(token);
+            (verificado.isPresent() ? tiempoValido : tiempoInvalido).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+            if (verificado.isPresent()) {
+                request.setAttribute(ATRIBUTO_TOKEN, verificado.get());
+                UserDetails userDetails = cargarUsuario(verificado.get());
+
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities()
+                );
+                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(auth);
             }
         }
 
@@ -101,7 +126,23 @@ public class JwtFilter extends OncePerRequestFilter {
 //        }
     }
 
-    private String obtenerToken(HttpServletRequest request) {
+    // En modo stateless el principal sale de los claims; solo se va a la BD si el token es antiguo o el rol cambió después
+    private UserDetails cargarUsuario(TokenVerificado verificado) {
+        Long usuarioId = verificado.usuarioId();
+        String rol = verificado.rol();
+
+        if (jwtProperties.isStatelessAuth() && usuarioId != null && rol != null
+                && !marcasCambioRol.rolCambiadoDesde(usuarioId, verificado.emitidoEnMillis())) {
+            return User.withUsername(verificado.username())
+                    .password("") // No hace falta: el token ya prueba la identidad
+                    .roles(rol)
+                    .build();
+        }
+        return usuarioService.loadUserByUsername(verificado.username());
+    }
+
+    // Pública y estática para poder medirla aislada (benchmarks JMH)
+    public static String obtenerToken(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             return authHeader.substring(7);
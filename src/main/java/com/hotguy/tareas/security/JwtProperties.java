@@ -8,6 +8,8 @@ import org.springframework.context.annotation.Configuration;
 public class JwtProperties {
     private String secret;
     private long expiration;
+    private int cacheSize = 10_000; // Tokens verificados que se recuerdan (0 = sin caché)
+    private boolean statelessAuth = false; // true = el filtro se fía de los claims "uid" y "rol" sin ir a la BD
 
     // Getters y Setters
     public String getSecret() {
@@ -25,4 +27,20 @@ public class JwtProperties {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public boolean isStatelessAuth() {
+        return statelessAuth;
+    }
+
+    public void setStatelessAuth(boolean statelessAuth) {
+        this.statelessAuth = statelessAuth;
+    }
 }
@@ -1,7 +1,9 @@
 package com.hotguy.tareas.security;
 
+import com.hotguy.tareas.model.Usuario;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
@@ -9,54 +11,77 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
 
 @Component // Marca esta clase como un bean para inyección de dependencias
 public class JwtUtil {
 
     private final JwtProperties jwtProperties;
     private final SecretKey key;
+    private final JwtParser parser; // Inmutable y thread-safe: se construye una sola vez
+    private final CacheTokens cache;
 
     public JwtUtil(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
         this.key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.cache = new CacheTokens(jwtProperties.getCacheSize());
     }
 
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_ROL = "rol";
+
     // Genera un token JWT con el nombre de usuario como subject
     public String generarToken(String username) {
+        return generarToken(username, null, null);
+    }
+
+    // Incluye id y rol para que el filtro pueda autenticar sin consultar la BD (jwt.stateless-auth)
+    public String generarToken(Usuario usuario) {
+        return generarToken(usuario.getUsername(), usuario.getId(), usuario.getRol());
+    }
+
+    private String generarToken(String username, Long usuarioId, String rol) {
         return Jwts.builder()
                 .subject(username) // Quien es el dueño del token
+                .claim(CLAIM_USUARIO_ID, usuarioId) // Los claims null no se escriben
+                .claim(CLAIM_ROL, rol)
                 .issuedAt(new Date()) // Fecha de emisión
                 .expiration(new Date(System.currentTimeMillis() + jwtProperties.getExpiration())) // Fecha de expiración
                 .signWith(key) // Algoritmo y clave secreta
                 .compact();
     }
 
-    // Valida si el token es correcto
-    public boolean validarToken(String token, String username) {
+    // Verifica firma y expiración una sola vez; vacío si el token no es válido
+    public Optional<TokenVerificado> verificar(String token) {
+        long ahora = System.currentTimeMillis();
+
+        TokenVerificado enCache = cache.obtener(token, ahora);
+        if (enCache != null) {
+            return Optional.of(enCache);
+        }
+
         try {
-            String usuarioDelToken = extraerUsername(token);
-            return usuarioDelToken.equals(username) && !estaExpirado(token);
+            Claims claims = parser.parseSignedClaims(token).getPayload(); // Lanza si la firma falla o está caducado
+            TokenVerificado verificado = new TokenVerificado(claims.getSubject(), claims.getExpiration().getTime(), claims);
+            cache.guardar(token, verificado, ahora);
+            return Optional.of(verificado);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
 
-    // Extrae el nombre de usuario (subject) del token
-    public String extraerUsername(String token) {
-        return extraerClaims(token).getSubject();
-    }
-
-    // Verifica si el token está expirado
-    private boolean estaExpirado(String token) {
-        return extraerClaims(token).getExpiration().before(new Date());
+    // Valida si el token es correcto
+    public boolean validarToken(String token, String username) {
+        return verificar(token)
+                .map(verificado -> verificado.username().equals(username))
+                .orElse(false);
     }
 
-    // Extrae todos los claims (información) del token
-    private Claims extraerClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    // Extrae el nombre de usuario (subject) del token
+    public String extraerUsername(String token) {
+        return verificar(token)
+                .map(TokenVerificado::username)
+                .orElseThrow(() -> new JwtException("Token inválido"));
     }
-}
\ No newline at end of file
+}
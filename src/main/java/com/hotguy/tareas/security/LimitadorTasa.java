@@ -0,0 +1,87 @@
+package com.hotguy.tareas.security;
+
+import com.hotguy.tareas.config.LimiteTasaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cubos de tokens sin cerrojos: cada cubo es un único long con el instante (nanoTime) en que volvería a estar lleno.
+// Tomar un token es adelantar ese instante un intervalo con CAS; si queda más lejos que la ráfaga, se rechaza
+@Component
+public class LimitadorTasa {
+
+    public record Decision(boolean permitida, int limite, long restantes, long reinicioNanos, long reintentarNanos) {
+    }
+
+    private static final String DESBORDE = ":*"; // Sufijo del cubo compartido de cada grupo con max-cubos lleno
+
+    private final LimiteTasaProperties properties;
+    private final MeterRegistry registry;
+    private final Map<String, AtomicLong> cubos = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rechazos = new ConcurrentHashMap<>();
+    private final Counter desbordes;
+
+    public LimitadorTasa(LimiteTasaProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+
+        Gauge.builder("limite.cubos", cubos, Map::size)
+                .description("Cubos de tokens en memoria (grupo + usuario o IP)")
+                .register(registry);
+        this.desbordes = Counter.builder("limite.desbordes")
+                .description("Peticiones de claves nuevas con max-cubos lleno, limitadas con el cubo compartido del grupo")
+                .register(registry);
+    }
+
+    public Decision tomar(String grupo, LimiteTasaProperties.Limite limite, String clave) {
+        long ahora = System.nanoTime();
+        long intervalo = (long) (1_000_000_000L / limite.getPorSegundo()); // Lo que tarda en reponerse un token
+        long rafaga = intervalo * limite.getCapacidad();
+
+        AtomicLong cubo = cubos.get(grupo + ':' + clave);
+        if (cubo == null) {
+            if (cubos.size() < properties.getMaxCubos()) {
+                cubo = cubos.computeIfAbsent(grupo + ':' + clave, c -> new AtomicLong(ahora)); // Nuevo = lleno
+            } else {
+                // Sin sitio: las claves nuevas comparten el cubo de desborde del grupo hasta la próxima limpieza.
+                // No se descarta ningún cubo vivo (se rellenaría lleno) ni se recorre el mapa en esta petición
+                desbordes.increment();
+                cubo = cubos.computeIfAbsent(grupo + DESBORDE, c -> new AtomicLong(ahora));
+            }
+        }
+
+        while (true) {
+            long lleno = cubo.get();
+            long desde = lleno - ahora > 0 ? lleno : ahora;
+            long ocupado = desde + intervalo - ahora; // Tokens consumidos tras este, expresados en tiempo
+            if (ocupado > rafaga) {
+                rechazos.computeIfAbsent(grupo, g -> Counter.builder("limite.rechazos")
+                        .description("Peticiones rechazadas con 429 por el limitador de tasa")
+                        .tag("grupo", g)
+                        .register(registry)).increment();
+                return new Decision(false, limite.getCapacidad(), 0, lleno - ahora, ocupado - rafaga);
+            }
+            if (cubo.compareAndSet(lleno, desde + intervalo)) {
+                return new Decision(true, limite.getCapacidad(), (rafaga - ocupado) / intervalo, ocupado, 0);
+            }
+        }
+    }
+
+    public int cubos() {
+        return cubos.size();
+    }
+
+    // Un cubo que ya se rellenó equivale a no tenerlo: se quita sin cambiar ningún límite. Los que siguen
+    // consumidos se quedan aunque se supere max-cubos; las claves nuevas van entretanto al cubo de desborde
+    @Scheduled(fixedDelayString = "${limite-tasa.limpieza-ms:60000}", initialDelayString = "${limite-tasa.limpieza-ms:60000}")
+    public void limpiar() {
+        long ahora = System.nanoTime();
+        cubos.values().removeIf(lleno -> lleno.get() - ahora <= 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.hotguy.tareas.security;
+
+import com.hotguy.tareas.config.LimiteTasaProperties;
+import com.hotguy.tareas.controller.ApiPaths;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Limita la tasa de peticiones a /api/** justo después de JwtFilter: por usuario autenticado, o por IP en /api/auth/**
+// (y en cualquier petición sin token). Lo rechazado no llega a tocar la BD ni BCrypt
+@Component
+public class LimiteTasaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA_LIMITE = "X-RateLimit-Limit";
+    public static final String CABECERA_RESTANTES = "X-RateLimit-Remaining";
+    public static final String CABECERA_REINICIO = "X-RateLimit-Reset"; // Segundos hasta tener el cubo lleno otra vez
+
+    private final LimitadorTasa limitador;
+    private final LimiteTasaProperties properties;
+
+    public LimiteTasaFilter(LimitadorTasa limitador, LimiteTasaProperties properties) {
+        this.limitador = limitador;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isHabilitado() || !request.getRequestURI().startsWith(ApiPaths.BASE + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String uri = request.getRequestURI();
+        String grupo;
+        LimiteTasaProperties.Limite limite;
+        if (uri.startsWith(ApiPaths.AUTH + "/")) {
+            grupo = "auth";
+            limite = properties.getAuth();
+        } else if (uri.startsWith(ApiPaths.ADMIN + "/")) {
+            grupo = "admin";
+            limite = properties.getAdmin();
+        } else {
+            grupo = "tareas";
+            limite = properties.getTareas();
+        }
+
+        // En auth la IP siempre: el usuario del cuerpo lo elige el atacante
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean autenticado = auth != null && !(auth instanceof AnonymousAuthenticationToken);
+        String clave = !grupo.equals("auth") && autenticado ? "u:" + auth.getName() : "ip:" + request.getRemoteAddr();
+
+        LimitadorTasa.Decision decision = limitador.tomar(grupo, limite, clave);
+        response.setHeader(CABECERA_LIMITE, String.valueOf(decision.limite()));
+        response.setHeader(CABECERA_RESTANTES, String.valueOf(decision.restantes()));
+        response.setHeader(CABECERA_REINICIO, String.valueOf(segundos(decision.reinicioNanos())));
+
+        if (!decision.permitida()) {
+            long reintentar = Math.max(1, segundos(decision.reintentarNanos()));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(reintentar));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Demasiadas peticiones; reintenta en " + reintentar + " s");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Redondeo hacia arriba: un cliente que espera lo indicado ya encuentra el token
+    private static long segundos(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
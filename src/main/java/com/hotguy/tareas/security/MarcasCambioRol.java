@@ -0,0 +1,54 @@
+package com.hotguy.tareas.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Recuerda en memoria cuándo cambió el rol de cada usuario: los tokens emitidos antes ya no sirven para fiarse del claim "rol".
+// Las marcas no sobreviven a un reinicio ni se comparten entre instancias: los tokens emitidos antes de arrancar esta JVM
+// tampoco se aceptan por sus claims, y con varias instancias hay que dejar jwt.stateless-auth=false
+@Component
+public class MarcasCambioRol {
+
+    private final Map<Long, Long> marcas = new ConcurrentHashMap<>();
+    private final JwtProperties jwtProperties;
+    private final long arranqueMillis = System.currentTimeMillis();
+
+    public MarcasCambioRol(JwtProperties jwtProperties) {
+        this.jwtProperties = jwtProperties;
+    }
+
+    // Se marca ya y otra vez tras el commit: un login entre ambos momentos aún leería el rol antiguo
+    public void marcarCambio(Long usuarioId) {
+        marcar(usuarioId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    marcar(usuarioId);
+                }
+            });
+        }
+    }
+
+    private void marcar(Long usuarioId) {
+        long ahora = System.currentTimeMillis();
+        marcas.put(usuarioId, ahora);
+
+        // Pasada la expiración de los tokens la marca ya no afecta a ninguno vivo
+        long limite = ahora - jwtProperties.getExpiration();
+        marcas.values().removeIf(marca -> marca < limite);
+    }
+
+    // true si el token se emitió antes del último cambio de rol del usuario o antes de arrancar la aplicación
+    public boolean rolCambiadoDesde(Long usuarioId, long emitidoEnMillis) {
+        if (emitidoEnMillis < arranqueMillis) {
+            return true;
+        }
+        Long marca = marcas.get(usuarioId);
+        return marca != null && emitidoEnMillis < marca;
+    }
+}
@@ -0,0 +1,24 @@
+package com.hotguy.tareas.security;
+
+import io.jsonwebtoken.Claims;
+
+// Resultado de verificar un token una sola vez: firma comprobada y claims listos para usar
+public record TokenVerificado(String username, long expiraEnMillis, Claims claims) {
+
+    public boolean estaExpirado(long ahoraMillis) {
+        return expiraEnMillis <= ahoraMillis;
+    }
+
+    public Long usuarioId() {
+        Number id = claims.get(JwtUtil.CLAIM_USUARIO_ID, Number.class);
+        return id == null ? null : id.longValue();
+    }
+
+    public String rol() {
+        return claims.get(JwtUtil.CLAIM_ROL, String.class);
+    }
+
+    public long emitidoEnMillis() {
+        return claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime();
+    }
+}
@@ -0,0 +1,283 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.config.IdempotenciaProperties;
+import com.hotguy.tareas.model.ClaveIdempotencia;
+import com.hotguy.tareas.repository.ClaveIdempotenciaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Respuestas guardadas por Idempotency-Key (ámbito: usuario). En memoria, repartidas en franjas con su propio
+// cerrojo; con idempotencia.persistente=true también en la tabla claves_idempotencia, y sobreviven a un reinicio
+@Component
+public class AlmacenIdempotencia {
+
+    public enum Tipo {
+        NUEVA, // Primera vez: quien la recibe ejecuta la petición y después llama a completar() o liberar()
+        REPETIDA, // Ya hay respuesta: se devuelve la guardada
+        HUELLA_DISTINTA, // La clave se usó con otra petición (otro método, ruta o cuerpo)
+        EN_CURSO // La primera sigue ejecutándose pasado idempotencia.espera-ms (o en otro nodo)
+    }
+
+    public record Respuesta(int estado, String tipoContenido, byte[] cuerpo) {
+    }
+
+    public record Reserva(Tipo tipo, String id, Respuesta respuesta) {
+    }
+
+    private final IdempotenciaProperties properties;
+    private final ClaveIdempotenciaRepository repository;
+    private final Franja[] franjas;
+    private final AtomicInteger claves = new AtomicInteger();
+    private final Counter repetidas;
+    private final Counter huellasDistintas;
+    private final Counter enCurso;
+
+    public AlmacenIdempotencia(IdempotenciaProperties properties, ClaveIdempotenciaRepository repository, MeterRegistry registry) {
+        this.properties = properties;
+        this.repository = repository;
+        this.franjas = new Franja[properties.getFranjas()];
+        for (int i = 0; i < franjas.length; i++) {
+            franjas[i] = new Franja();
+        }
+
+        Gauge.builder("idempotencia.claves", claves, AtomicInteger::get)
+                .description("Idempotency-Keys en memoria (en curso y con respuesta guardada)")
+                .register(registry);
+        this.repetidas = resultado(registry, "repetida");
+        this.huellasDistintas = resultado(registry, "huella_distinta");
+        this.enCurso = resultado(registry, "en_curso");
+    }
+
+    private static Counter resultado(MeterRegistry registry, String resultado) {
+        return Counter.builder("idempotencia.duplicados")
+                .description("Peticiones con una Idempotency-Key ya vista, por cómo se resolvieron")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    // Un duplicado de una petición en curso espera aquí a su respuesta en lugar de ejecutarse otra vez
+    public Reserva reservar(String username, String clave, String huella) {
+        String id = sha256(username + '\0' + clave);
+        Franja franja = franjas[Math.floorMod(id.hashCode(), franjas.length)];
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getEsperaMs());
+
+        while (true) {
+            Entrada entrada;
+            boolean nueva = false;
+            franja.cerrojo.lock();
+            try {
+                entrada = franja.entradas.get(id);
+                if (entrada != null && entrada.caducada(System.nanoTime())) {
+                    quitar(franja, id);
+                    entrada = null;
+                }
+                if (entrada == null) {
+                    entrada = new Entrada(huella);
+                    franja.entradas.put(id, entrada);
+                    claves.incrementAndGet();
+                    nueva = true;
+                    liberarEspacio(franja);
+                }
+            } finally {
+                franja.cerrojo.unlock();
+            }
+
+            if (!entrada.huella.equals(huella)) {
+                huellasDistintas.increment();
+                return new Reserva(Tipo.HUELLA_DISTINTA, id, null);
+            }
+            if (nueva) {
+                return properties.isPersistente() ? reservarEnTabla(franja, id, entrada) : new Reserva(Tipo.NUEVA, id, null);
+            }
+
+            Respuesta respuesta;
+            try {
+                respuesta = entrada.resultado.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                enCurso.increment();
+                return new Reserva(Tipo.EN_CURSO, id, null);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando la petición original", e);
+            }
+            if (respuesta != null) {
+                repetidas.increment();
+                return new Reserva(Tipo.REPETIDA, id, respuesta);
+            }
+            // La primera falló y liberó la clave: se vuelve a intentar, y uno de los que esperaban la ejecuta
+        }
+    }
+
+    public void completar(String id, Respuesta respuesta) {
+        Entrada entrada = buscar(id);
+        if (properties.isPersistente()) {
+            repository.guardarRespuesta(id, respuesta.estado(), respuesta.tipoContenido(), respuesta.cuerpo(),
+                    LocalDateTime.now().plusSeconds(properties.getTtlSegundos()));
+        }
+        if (entrada != null) {
+            entrada.expiraNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getTtlSegundos());
+            entrada.resultado.complete(respuesta);
+        }
+    }
+
+    public void liberar(String id) {
+        if (properties.isPersistente()) {
+            repository.liberar(id);
+        }
+        Franja franja = franjas[Math.floorMod(id.hashCode(), franjas.length)];
+        Entrada entrada;
+        franja.cerrojo.lock();
+        try {
+            entrada = quitar(franja, id);
+        } finally {
+            franja.cerrojo.unlock();
+        }
+        if (entrada != null) entrada.resultado.complete(null); // Despierta a los duplicados que esperaban
+    }
+
+    @Scheduled(fixedDelayString = "${idempotencia.limpieza-ms:60000}", initialDelayString = "${idempotencia.limpieza-ms:60000}")
+    public void limpiar() {
+        long ahora = System.nanoTime();
+        for (Franja franja : franjas) {
+            franja.cerrojo.lock();
+            try {
+                franja.entradas.values().removeIf(e -> {
+                    boolean caducada = e.caducada(ahora);
+                    if (caducada) claves.decrementAndGet();
+                    return caducada;
+                });
+            } finally {
+                franja.cerrojo.unlock();
+            }
+        }
+        if (properties.isPersistente()) {
+            repository.purgar(LocalDateTime.now());
+        }
+    }
+
+    public int clavesEnMemoria() {
+        return claves.get();
+    }
+
+    // La tabla manda: puede tener la respuesta de antes de un reinicio o una reserva de otro nodo
+    private Reserva reservarEnTabla(Franja franja, String id, Entrada entrada) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Optional<ClaveIdempotencia> fila = repository.findById(id);
+        if (fila.isPresent() && fila.get().getFechaExpiracion().isBefore(ahora)) {
+            repository.borrarSiCaducada(id, ahora);
+            fila = Optional.empty();
+        }
+
+        if (fila.isEmpty()) {
+            try {
+                repository.saveAndFlush(new ClaveIdempotencia(id, entrada.huella, ahora.plusSeconds(properties.getReservaSegundos())));
+                return new Reserva(Tipo.NUEVA, id, null);
+            } catch (DataIntegrityViolationException e) {
+                fila = repository.findById(id); // Otro nodo la reservó entre la lectura y el INSERT
+            }
+        }
+
+        ClaveIdempotencia guardada = fila.orElse(null);
+        Reserva reserva;
+        if (guardada == null || guardada.getEstado() == null) {
+            enCurso.increment();
+            reserva = new Reserva(Tipo.EN_CURSO, id, null);
+        } else if (!guardada.getHuella().equals(entrada.huella)) {
+            huellasDistintas.increment();
+            reserva = new Reserva(Tipo.HUELLA_DISTINTA, id, null);
+        } else {
+            repetidas.increment();
+            reserva = new Reserva(Tipo.REPETIDA, id,
+                    new Respuesta(guardada.getEstado(), guardada.getTipoContenido(), guardada.getCuerpo()));
+        }
+
+        // La entrada en memoria no ejecutó nada: se retira y los duplicados locales que esperaban lo reintentan
+        franja.cerrojo.lock();
+        try {
+            if (franja.entradas.get(id) == entrada) quitar(franja, id);
+        } finally {
+            franja.cerrojo.unlock();
+        }
+        entrada.resultado.complete(reserva.respuesta());
+        return reserva;
+    }
+
+    private Entrada buscar(String id) {
+        Franja franja = franjas[Math.floorMod(id.hashCode(), franjas.length)];
+        franja.cerrojo.lock();
+        try {
+            return franja.entradas.get(id);
+        } finally {
+            franja.cerrojo.unlock();
+        }
+    }
+
+    // Con el cerrojo de la franja tomado
+    private Entrada quitar(Franja franja, String id) {
+        Entrada entrada = franja.entradas.remove(id);
+        if (entrada != null) claves.decrementAndGet();
+        return entrada;
+    }
+
+    // Con el cerrojo de la franja tomado: las más antiguas primero, nunca una en curso (tiene gente esperando)
+    private void liberarEspacio(Franja franja) {
+        int maximo = Math.max(1, properties.getMaxClaves() / franjas.length);
+        Iterator<Map.Entry<String, Entrada>> it = franja.entradas.entrySet().iterator();
+        while (franja.entradas.size() > maximo && it.hasNext()) {
+            if (it.next().getValue().resultado.isDone()) {
+                it.remove();
+                claves.decrementAndGet();
+            }
+        }
+    }
+
+    private static String sha256(String texto) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Franja {
+        final ReentrantLock cerrojo = new ReentrantLock();
+        final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(); // Orden de llegada; protegido por cerrojo
+    }
+
+    private static final class Entrada {
+        final String huella;
+        final CompletableFuture<Respuesta> resultado = new CompletableFuture<>(); // null = la primera falló
+        volatile long expiraNanos = Long.MAX_VALUE; // En curso no caduca: la petición siempre completa o libera
+
+        Entrada(String huella) {
+            this.huella = huella;
+        }
+
+        boolean caducada(long ahora) {
+            return expiraNanos != Long.MAX_VALUE && expiraNanos - ahora < 0;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.config.ArchivadoProperties;
+import com.hotguy.tareas.dto.EventoTarea;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.DirectorioShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Pasa a tareas_archivo las tareas completadas que llevan archivado.edad-dias sin cambios, para que "tareas" (y cada
+// listado por usuario) no crezca con ellas. Por lotes en orden (fecha_actualizacion, id) con el índice
+// ix_tareas_completada_actualizacion, cada uno en su transacción corta y con una pausa entre lotes. Bloquea a los
+// dueños del lote antes que sus filas, en el mismo orden que TareaService: una edición que llegue a la vez espera
+// ese lote y después da 404. Cada dueño gasta un número de cambio y recibe un evento "resync" (como la importación)
+@Component
+public class ArchivadorTareas {
+
+    private final ArchivadoProperties properties;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final DirectorioShards shards;
+    private final IndiceTareas indiceTareas;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final CanalEventos canalEventos;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Counter archivadas;
+    private final Timer duracionLote;
+
+    // leidas decide si queda otro lote; movidas puede ser menor si alguna cambió mientras se bloqueaba a su dueño
+    private record Lote(int leidas, int movidas, LocalDateTime ultimaFecha, long ultimoId) {
+    }
+
+    public ArchivadorTareas(ArchivadoProperties properties, NamedParameterJdbcTemplate jdbc,
+                            TransactionTemplate transactionTemplate, DirectorioShards shards, IndiceTareas indiceTareas,
+                            LecturasCompartidas lecturasCompartidas, CanalEventos canalEventos,
+                            EntityManagerFactory entityManagerFactory, MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.indiceTareas = indiceTareas;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.canalEventos = canalEventos;
+        this.entityManagerFactory = entityManagerFactory;
+        this.archivadas = Counter.builder("archivado.filas")
+                .description("Tareas movidas de tareas a tareas_archivo")
+                .register(registry);
+        this.duracionLote = Timer.builder("archivado.lote")
+                .description("Duración de cada lote del archivador (una transacción)")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${archivado.intervalo-ms:3600000}", initialDelayString = "${archivado.intervalo-ms:3600000}")
+    public long archivar() {
+        if (!properties.isHabilitado()) return 0;
+        LocalDateTime limite = LocalDateTime.now().minusDays(properties.getEdadDias());
+        long movidas = 0;
+        for (int shard = 0; shard < shards.numero(); shard++) {
+            movidas += archivarShard(shard, limite);
+        }
+        return movidas;
+    }
+
+    private long archivarShard(int shard, LocalDateTime limite) {
+        long movidas = 0;
+        LocalDateTime ultimaFecha = LocalDateTime.of(1970, 1, 1, 0, 0);
+        long ultimoId = 0;
+        while (true) {
+            LocalDateTime desdeFecha = ultimaFecha;
+            long desdeId = ultimoId;
+            Lote lote = duracionLote.record(() -> transactionTemplate.execute(estado -> {
+                shards.fijarShard(shard);
+                return moverLote(limite, desdeFecha, desdeId);
+            }));
+            if (lote == null || lote.leidas() == 0) break;
+            movidas += lote.movidas();
+            archivadas.increment(lote.movidas());
+            if (lote.leidas() < properties.getTamanoLote()) break;
+            ultimaFecha = lote.ultimaFecha();
+            ultimoId = lote.ultimoId();
+            if (!pausar()) break;
+        }
+        return movidas;
+    }
+
+    // Cursor (fecha_actualizacion, id): el siguiente lote empieza donde acabó este, sin volver a recorrer lo ya visto
+    private Lote moverLote(LocalDateTime limite, LocalDateTime desdeFecha, long desdeId) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("limite", Timestamp.valueOf(limite))
+                .addValue("desdeFecha", Timestamp.valueOf(desdeFecha))
+                .addValue("desdeId", desdeId)
+                .addValue("n", properties.getTamanoLote())
+                .addValue("ahora", Timestamp.valueOf(LocalDateTime.now()));
+        List<Map<String, Object>> candidatas = jdbc.queryForList("""
+                SELECT id, usuario_id, fecha_actualizacion FROM tareas
+                WHERE completada = TRUE AND fecha_actualizacion < :limite
+                  AND (fecha_actualizacion > :desdeFecha OR (fecha_actualizacion = :desdeFecha AND id > :desdeId))
+                ORDER BY fecha_actualizacion, id
+                LIMIT :n
+                """, parametros);
+        if (candidatas.isEmpty()) {
+            return new Lote(0, 0, desdeFecha, desdeId);
+        }
+
+        List<Long> ids = candidatas.stream().map(fila -> ((Number) fila.get("id")).longValue()).toList();
+        List<Long> usuarios = candidatas.stream().map(fila -> ((Number) fila.get("usuario_id")).longValue()).distinct().toList();
+        parametros.addValue("ids", ids).addValue("usuarios", usuarios);
+
+        // Con los dueños bloqueados nadie más escribe en sus tareas: se vuelve a comprobar que sigan siendo archivables
+        List<Map<String, Object>> duenos = jdbc.queryForList(
+                "SELECT id, username, secuencia_cambios FROM usuarios WHERE id IN (:usuarios) ORDER BY id FOR UPDATE", parametros);
+        jdbc.update("""
+                INSERT INTO tareas_archivo (id, titulo, descripcion, completada, fecha_creacion, fecha_actualizacion,
+                                            version, usuario_id, secuencia_cambio, fecha_archivado)
+                SELECT id, titulo, descripcion, completada, fecha_creacion, fecha_actualizacion,
+                       version, usuario_id, secuencia_cambio, :ahora
+                FROM tareas WHERE id IN (:ids) AND completada = TRUE AND fecha_actualizacion < :limite
+                """, parametros);
+        int movidas = jdbc.update("DELETE FROM tareas WHERE id IN (:ids) AND completada = TRUE AND fecha_actualizacion < :limite",
+                parametros);
+
+        // Sin lápidas (siguen existiendo, de solo lectura): un número de cambio nuevo y "resync" para que el cliente
+        // vuelva a pedir la lista en vez de quedarse con tareas que ya no están entre las activas
+        jdbc.update("UPDATE usuarios SET secuencia_cambios = secuencia_cambios + 1 WHERE id IN (:usuarios)", parametros);
+
+        // El SQL directo no pasa por Hibernate: la caché de segundo nivel aún tendría esas tareas y el contador anterior
+        TrasCommit.ejecutar(() -> {
+            ids.forEach(id -> entityManagerFactory.getCache().evict(Tarea.class, id));
+            usuarios.forEach(id -> entityManagerFactory.getCache().evict(Usuario.class, id));
+        });
+        duenos.forEach(dueno -> {
+            String username = (String) dueno.get("username");
+            long secuencia = ((Number) dueno.get("secuencia_cambios")).longValue() + 1;
+            indiceTareas.invalidarTrasCommit(username);
+            lecturasCompartidas.invalidarTrasCommit(username);
+            canalEventos.publicarTrasCommit(username, EventoTarea.resincronizar(secuencia));
+        });
+
+        Map<String, Object> ultima = candidatas.get(candidatas.size() - 1);
+        return new Lote(ids.size(), movidas, ((Timestamp) ultima.get("fecha_actualizacion")).toLocalDateTime(),
+                ids.get(ids.size() - 1));
+    }
+
+    private boolean pausar() {
+        try {
+            Thread.sleep(properties.getPausaMs());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Apagado: se sigue en la próxima ejecución
+            return false;
+        }
+    }
+}
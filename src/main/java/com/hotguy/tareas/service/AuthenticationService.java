@@ -1,10 +1,13 @@
 package com.hotguy.tareas.service;
 
+import com.hotguy.tareas.config.EnrutadorDataSource;
 import com.hotguy.tareas.dto.AuthRequest;
 import com.hotguy.tareas.dto.UsuarioRequest;
 import com.hotguy.tareas.model.Usuario;
 import com.hotguy.tareas.repository.UsuarioRepository;
 import com.hotguy.tareas.security.JwtUtil;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,43 +26,63 @@ public class AuthenticationService {
     private final AuthenticationManager authManager;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final PasswordHashService passwordHashService;
 
-    public AuthenticationService(UsuarioRepository usuarioRepository, AuthenticationManager authManager, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthenticationService(UsuarioRepository usuarioRepository, AuthenticationManager authManager, PasswordEncoder passwordEncoder, JwtUtil jwtUtil, PasswordHashService passwordHashService) {
         this.usuarioRepository = usuarioRepository;
         this.authManager = authManager;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.passwordHashService = passwordHashService;
     }
 
     public ResponseEntity<?> loguearUsuario(UsuarioRequest request) {
         try {
-            Authentication auth = authManager.authenticate(
+            // BCrypt se ejecuta en el pool acotado de hashes, no en el hilo de Tomcat
+            Authentication auth = passwordHashService.ejecutar(() -> authManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-            );
+            ));
 
-            String token = jwtUtil.generarToken(request.getUsername());
+            // El token lleva id y rol para poder autenticar sin BD en las siguientes peticiones: se leen del primario,
+            // la réplica podría tener aún el rol anterior
+            String token = EnrutadorDataSource.enPrimario(() -> usuarioRepository.findByUsername(auth.getName()))
+                    .map(jwtUtil::generarToken)
+                    .orElseGet(() -> jwtUtil.generarToken(auth.getName()));
             return ResponseEntity.ok(new AuthRequest(token));
 
         } catch (AuthenticationException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas");
+        } catch (HashSaturadoException e) {
+            return demasiadasPeticiones(e);
         }
     }
 
     public Optional<String> registrarUsuario(String username, String password) {
-        if (usuarioRepository.findByUsername(username).isPresent()) {
+        if (EnrutadorDataSource.enPrimario(() -> usuarioRepository.findByUsername(username)).isPresent()) {
             return Optional.empty();
         }
 
         Usuario nuevo = new Usuario();
         nuevo.setUsername(username);
-        nuevo.setPassword(passwordEncoder.encode(password));
+        nuevo.setPassword(passwordHashService.ejecutar(() -> passwordEncoder.encode(password)));
         nuevo.setRol("USER"); // 👈 Rol por defecto
 //        nuevo.setRol(rol.equalsIgnoreCase("ADMIN") ? "ADMIN" : "USER"); // validación mínima
 
-        usuarioRepository.save(nuevo);
+        try {
+            usuarioRepository.save(nuevo);
+        } catch (DataIntegrityViolationException e) {
+            return Optional.empty(); // Otro registro con el mismo username ganó la carrera
+        }
 
         // Generar JWT
-        String token = jwtUtil.generarToken(username);
+        String token = jwtUtil.generarToken(nuevo);
         return Optional.of(token);
     }
-}
\ No newline at end of file
+
+    // 429 con Retry-After para que el cliente espere en vez de reintentar en bucle
+    public static ResponseEntity<?> demasiadasPeticiones(HashSaturadoException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSegundos()))
+                .body(e.getMessage());
+    }
+}
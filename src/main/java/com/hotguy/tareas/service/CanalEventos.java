@@ -0,0 +1,191 @@
+package com.hotguy.tareas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.config.EventosProperties;
+import com.hotguy.tareas.dto.EventoTarea;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reparto de eventos de tareas a las conexiones SSE de cada usuario. Una conexión inactiva no ocupa ningún hilo
+// (petición asíncrona del servlet); publicar solo encola, y un pool pequeño y compartido escribe en los sockets
+@Component
+public class CanalEventos {
+
+    private final EventosProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService envio;
+    private final Map<String, Set<Suscriptor>> suscriptores = new ConcurrentHashMap<>();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final Counter resincronizaciones;
+
+    public CanalEventos(EventosProperties properties, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.envio = Executors.newFixedThreadPool(properties.getHilosEnvio(), r -> {
+            Thread hilo = new Thread(r, "sse-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        Gauge.builder("eventos.conexiones", conexiones, AtomicInteger::get)
+                .description("Conexiones SSE abiertas")
+                .register(registry);
+        this.resincronizaciones = Counter.builder("eventos.resync")
+                .description("Conexiones que se quedaron atrás y recibieron 'resync' en lugar de sus eventos")
+                .register(registry);
+    }
+
+    public SseEmitter suscribir(String username) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeoutMs());
+        Suscriptor suscriptor = new Suscriptor(username, emitter);
+
+        suscriptores.computeIfAbsent(username, u -> ConcurrentHashMap.newKeySet()).add(suscriptor);
+        conexiones.incrementAndGet();
+        emitter.onCompletion(() -> quitar(suscriptor));
+        emitter.onTimeout(() -> quitar(suscriptor));
+        emitter.onError(e -> quitar(suscriptor));
+
+        suscriptor.encolar(SseEmitter.event().comment("conectado").build()); // Envía las cabeceras ya: el cliente sabe que está dentro
+        return emitter;
+    }
+
+    // Solo si la transacción confirma: un rollback nunca llega a los clientes
+    public void publicarTrasCommit(String username, EventoTarea evento) {
+        TrasCommit.ejecutar(() -> publicar(username, evento));
+    }
+
+    void publicar(String username, EventoTarea evento) {
+        Set<Suscriptor> destino = suscriptores.get(username);
+        if (destino == null || destino.isEmpty()) return;
+
+        // Se serializa una vez por evento, no una vez por conexión (el mensaje ya construido es de solo lectura)
+        Set<ResponseBodyEmitter.DataWithMediaType> mensaje;
+        try {
+            mensaje = SseEmitter.event()
+                    .id(String.valueOf(evento.secuencia()))
+                    .name(evento.tipo())
+                    .data(objectMapper.writeValueAsString(evento), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Suscriptor suscriptor : destino) {
+            suscriptor.encolar(mensaje);
+        }
+    }
+
+    public int conexiones() {
+        return conexiones.get();
+    }
+
+    // Mantiene vivas las conexiones inactivas y detecta antes las que el cliente ya cerró
+    @Scheduled(fixedRateString = "${eventos.latido-ms:25000}")
+    public void latir() {
+        Set<ResponseBodyEmitter.DataWithMediaType> latido = SseEmitter.event().comment("latido").build();
+        suscriptores.values().forEach(grupo -> grupo.forEach(s -> s.encolar(latido)));
+    }
+
+    // Antes del apagado ordenado de Tomcat: si no, esperaría a que terminen las conexiones SSE (que no terminan)
+    @EventListener(ContextClosedEvent.class)
+    public void cerrarConexiones() {
+        suscriptores.values().forEach(grupo -> grupo.forEach(s -> s.emitter.complete()));
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        envio.shutdown();
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        Set<Suscriptor> grupo = suscriptores.get(suscriptor.username);
+        if (grupo != null && grupo.remove(suscriptor)) {
+            conexiones.decrementAndGet();
+            if (grupo.isEmpty()) suscriptores.remove(suscriptor.username, grupo);
+        }
+    }
+
+    private final class Suscriptor {
+        private final String username;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> pendientes = new ArrayDeque<>(); // Protegido por synchronized (this)
+        private boolean resincronizar; // Protegido por synchronized (this)
+        private boolean programado; // Protegido por synchronized (this): como mucho una tarea de envío por conexión
+
+        Suscriptor(String username, SseEmitter emitter) {
+            this.username = username;
+            this.emitter = emitter;
+        }
+
+        // Nunca bloquea a quien publica: si la cola está llena se descarta todo y queda un único "resync"
+        void encolar(Set<ResponseBodyEmitter.DataWithMediaType> mensaje) {
+            synchronized (this) {
+                if (pendientes.size() >= properties.getColaMaxima()) {
+                    pendientes.clear();
+                    if (!resincronizar) resincronizaciones.increment();
+                    resincronizar = true;
+                } else {
+                    pendientes.add(mensaje);
+                }
+                if (programado) return;
+                programado = true;
+            }
+            envio.execute(this::vaciar);
+        }
+
+        private void vaciar() {
+            while (true) {
+                List<Set<ResponseBodyEmitter.DataWithMediaType>> lote;
+                synchronized (this) {
+                    if (pendientes.isEmpty() && !resincronizar) {
+                        programado = false;
+                        return;
+                    }
+                    lote = new ArrayList<>(pendientes.size() + 1);
+                    if (resincronizar) {
+                        lote.add(SseEmitter.event().name(EventoTarea.RESINCRONIZAR).data("{}", MediaType.APPLICATION_JSON).build());
+                        resincronizar = false;
+                    }
+                    lote.addAll(pendientes);
+                    pendientes.clear();
+                }
+                try {
+                    for (Set<ResponseBodyEmitter.DataWithMediaType> mensaje : lote) {
+                        emitter.send(mensaje);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado (o emitter ya completado): se libera la conexión
+                    synchronized (this) {
+                        pendientes.clear();
+                        programado = false;
+                    }
+                    quitar(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.config.CambiosProperties;
+import com.hotguy.tareas.repository.DirectorioShards;
+import com.hotguy.tareas.repository.TareaEliminadaRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+// Borra las lápidas más antiguas que la retención; las marcas de esa edad ya se rechazan con 410.
+// Con sharding, cada shard en su propia transacción
+@Component
+public class CompactadorLapidas {
+
+    private final TareaEliminadaRepository tareaEliminadaRepository;
+    private final CambiosProperties properties;
+    private final DirectorioShards shards;
+    private final TransactionTemplate transactionTemplate;
+
+    public CompactadorLapidas(TareaEliminadaRepository tareaEliminadaRepository, CambiosProperties properties,
+                              DirectorioShards shards, TransactionTemplate transactionTemplate) {
+        this.tareaEliminadaRepository = tareaEliminadaRepository;
+        this.properties = properties;
+        this.shards = shards;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${cambios.compactacion-ms:3600000}", initialDelayString = "${cambios.compactacion-ms:3600000}")
+    public int compactar() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(properties.getRetencionHoras());
+        int borradas = 0;
+        for (int shard = 0; shard < shards.numero(); shard++) {
+            int actual = shard;
+            borradas += transactionTemplate.execute(estado -> {
+                shards.fijarShard(actual);
+                return tareaEliminadaRepository.compactar(limite);
+            });
+        }
+        return borradas;
+    }
+}
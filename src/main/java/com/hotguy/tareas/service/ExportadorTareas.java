@@ -0,0 +1,70 @@
+package com.hotguy.tareas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.repository.DirectorioShards;
+import com.hotguy.tareas.repository.TareaArchivadaRepository;
+import com.hotguy.tareas.repository.TareaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+// Exporta las tareas de un usuario como NDJSON (un objeto JSON por línea) según se leen del cursor:
+// la memoria usada no depende de cuántas tareas tenga
+@Service
+public class ExportadorTareas {
+
+    private final TareaRepository tareaRepository;
+    private final TareaArchivadaRepository tareaArchivadaRepository;
+    private final ObjectWriter escritor;
+    private final DirectorioShards shards;
+
+    public ExportadorTareas(TareaRepository tareaRepository, TareaArchivadaRepository tareaArchivadaRepository,
+                            ObjectMapper objectMapper, DirectorioShards shards) {
+        this.tareaRepository = tareaRepository;
+        this.tareaArchivadaRepository = tareaArchivadaRepository;
+        this.shards = shards;
+        this.escritor = objectMapper.writerFor(TareaView.class); // Mismo JSON que /api/tasks/list
+    }
+
+    // La transacción (y la conexión) dura lo que tarde el cliente en leer: el cursor no puede cerrarse antes.
+    // Con incluirArchivadas, después de las activas van las de tareas_archivo (cada grupo en orden de id)
+    @Transactional(readOnly = true)
+    public long exportar(String username, boolean incluirArchivadas, OutputStream salida) throws IOException {
+        shards.fijar(username);
+        BufferedOutputStream buffer = new BufferedOutputStream(salida, 64 * 1024);
+        long escritas;
+        try (Stream<TareaView> tareas = tareaRepository.streamByUsuarioUsernameOrderById(username)) {
+            escritas = escribir(tareas, buffer);
+        }
+        if (incluirArchivadas) {
+            try (Stream<TareaView> archivadas = tareaArchivadaRepository.streamVistasByUsername(username)) {
+                escritas += escribir(archivadas, buffer);
+            }
+        }
+        buffer.flush();
+        return escritas;
+    }
+
+    private long escribir(Stream<TareaView> tareas, OutputStream buffer) throws IOException {
+        try {
+            return tareas.mapToLong(tarea -> {
+                try {
+                    buffer.write(escritor.writeValueAsBytes(tarea));
+                    buffer.write('\n');
+                    return 1;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // Normalmente el cliente cortó la descarga
+                }
+            }).sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
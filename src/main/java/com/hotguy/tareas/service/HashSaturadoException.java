@@ -0,0 +1,16 @@
+package com.hotguy.tareas.service;
+
+// El ejecutor de hashes está lleno: el cliente debe reintentar pasados unos segundos (HTTP 429)
+public class HashSaturadoException extends RuntimeException {
+
+    private final int retryAfterSegundos;
+
+    public HashSaturadoException(int retryAfterSegundos) {
+        super("Demasiadas peticiones de autenticación, reintenta en " + retryAfterSegundos + "s");
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public int getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
@@ -0,0 +1,367 @@
+package com.hotguy.tareas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hotguy.tareas.config.ImportacionProperties;
+import com.hotguy.tareas.dto.EventoTarea;
+import com.hotguy.tareas.dto.ProgresoImportacion;
+import com.hotguy.tareas.dto.TareaRequest;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.DirectorioShards;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Importación masiva de tareas (NDJSON o CSV) leyendo el cuerpo según llega: en memoria solo está la tanda
+// pendiente de confirmar. Cada tanda va en su propia transacción con INSERT en lotes JDBC
+@Service
+public class ImportadorTareas {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private final UsuarioRepository usuarioRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportacionProperties properties;
+    private final IndiceTareas indiceTareas;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final CanalEventos canalEventos;
+    private final DirectorioShards shards;
+    private final ObjectReader lectorJson;
+    private final Counter importadas;
+    private final Counter rechazadas;
+
+    // Última importación de cada usuario, para consultar el progreso. Las terminadas se olvidan pasados
+    // importacion.retencion-segundos (como las claves de AlmacenIdempotencia)
+    private final Map<String, Progreso> progresos = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ImportadorTareas(UsuarioRepository usuarioRepository, Validator validator, TransactionTemplate transactionTemplate,
+                            ImportacionProperties properties, IndiceTareas indiceTareas, LecturasCompartidas lecturasCompartidas,
+                            CanalEventos canalEventos, DirectorioShards shards, ObjectMapper objectMapper,
+                            MeterRegistry registry) {
+        this.usuarioRepository = usuarioRepository;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.indiceTareas = indiceTareas;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.canalEventos = canalEventos;
+        this.shards = shards;
+        this.lectorJson = objectMapper.readerFor(TareaRequest.class);
+        this.importadas = Counter.builder("importacion.filas").tag("resultado", "importada")
+                .description("Filas de importaciones masivas").register(registry);
+        this.rechazadas = Counter.builder("importacion.filas").tag("resultado", "rechazada")
+                .description("Filas de importaciones masivas").register(registry);
+    }
+
+    // Una importación a la vez por usuario. Las filas inválidas se rechazan y se informan sin parar el resto
+    public ProgresoImportacion importar(String username, MediaType tipo, InputStream entrada) throws IOException {
+        Progreso progreso = new Progreso(properties.getMaxRechazosInforme());
+        if (!registrar(username, progreso)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya hay una importación en curso");
+        }
+
+        try {
+            Charset charset = tipo.getCharset() != null ? tipo.getCharset() : StandardCharsets.UTF_8;
+            BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, charset), 64 * 1024);
+            LectorFilas filas = tipo.isCompatibleWith(MediaType.parseMediaType(CSV))
+                    ? new LectorCsv(lector) : new LectorNdjson(lector, lectorJson);
+
+            List<Tarea> tanda = new ArrayList<>(properties.getFilasPorCommit());
+            Fila fila;
+            while ((fila = filas.siguiente()) != null) {
+                progreso.leidas++;
+                String error = fila.error();
+                Tarea tarea = null;
+                if (error == null) {
+                    tarea = aTarea(fila.tarea());
+                    error = primerError(tarea);
+                }
+                if (error != null) {
+                    progreso.rechazar(fila.linea(), error);
+                    rechazadas.increment();
+                    continue;
+                }
+                tanda.add(tarea);
+                if (tanda.size() >= properties.getFilasPorCommit()) {
+                    confirmar(username, tanda, progreso);
+                }
+            }
+            if (!tanda.isEmpty()) {
+                confirmar(username, tanda, progreso);
+            }
+        } finally {
+            progreso.expiraNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getRetencionSegundos());
+            progreso.terminada = true;
+        }
+        return progreso.instantanea();
+    }
+
+    // null si el usuario nunca ha importado nada
+    public ProgresoImportacion progreso(String username) {
+        Progreso progreso = progresos.get(username);
+        return progreso == null || progreso.caducado(System.nanoTime()) ? null : progreso.instantanea();
+    }
+
+    @Scheduled(fixedDelayString = "${importacion.limpieza-ms:60000}", initialDelayString = "${importacion.limpieza-ms:60000}")
+    public void limpiar() {
+        long ahora = System.nanoTime();
+        progresos.values().removeIf(p -> p.caducado(ahora)); // Borrado condicional: no se lleva una importación nueva
+    }
+
+    // Atómico por usuario: false si la anterior sigue en curso
+    private boolean registrar(String username, Progreso nuevo) {
+        return progresos.compute(username, (u, anterior) -> anterior != null && !anterior.terminada ? anterior : nuevo) == nuevo;
+    }
+
+    private void confirmar(String username, List<Tarea> tanda, Progreso progreso) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            shards.fijar(username); // Antes de la primera sentencia de la tanda
+            Session session = entityManager.unwrap(Session.class);
+            session.setJdbcBatchSize(properties.getTamanoLote());
+            session.setCacheMode(CacheMode.IGNORE); // No llenar la caché de segundo nivel con miles de tareas recién creadas
+
+            // Se reserva de una vez el tramo de secuencias de la tanda; el usuario queda bloqueado hasta el commit
+            Usuario usuario = usuarioRepository.bloquearPorUsername(username)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
+            if (!shards.enSuShard(usuario.getId())) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Tareas del usuario cambiando de shard, reintenta");
+            }
+            long secuencia = usuario.getSecuenciaCambios();
+            usuario.setSecuenciaCambios(secuencia + tanda.size());
+            entityManager.flush();
+
+            for (int i = 0; i < tanda.size(); i++) {
+                Tarea tarea = tanda.get(i);
+                tarea.setUsuario(usuario); // Tras clear() está desacoplado, pero para la clave foránea basta su id
+                tarea.setSecuenciaCambio(++secuencia);
+                entityManager.persist(tarea);
+                if ((i + 1) % properties.getTamanoLote() == 0) {
+                    entityManager.flush(); // Un lote JDBC
+                    entityManager.clear(); // Y el contexto de persistencia no crece con la tanda
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            indiceTareas.invalidarTrasCommit(username);
+            lecturasCompartidas.invalidarTrasCommit(username);
+            canalEventos.publicarTrasCommit(username, EventoTarea.resincronizar(secuencia));
+        });
+        progreso.importadas += tanda.size();
+        importadas.increment(tanda.size());
+        tanda.clear();
+    }
+
+    private static Tarea aTarea(TareaRequest request) {
+        Tarea tarea = new Tarea(request.getTitulo(), request.getDescripcion());
+        if (request.getCompletada() != null) tarea.setCompletada(request.getCompletada());
+        return tarea;
+    }
+
+    // Mismas reglas que Tarea (Bean Validation): la fila inválida se rechaza antes de llegar al INSERT
+    private String primerError(Tarea tarea) {
+        Set<ConstraintViolation<Tarea>> violaciones = validator.validate(tarea);
+        return violaciones.isEmpty() ? null : violaciones.iterator().next().getMessage();
+    }
+
+    // Una fila leída: la tarea o el motivo por el que no se pudo interpretar
+    private record Fila(long linea, TareaRequest tarea, String error) {
+    }
+
+    private abstract static class LectorFilas {
+        protected final BufferedReader lector;
+        protected long linea;
+
+        LectorFilas(BufferedReader lector) {
+            this.lector = lector;
+        }
+
+        // null al terminar la entrada
+        abstract Fila siguiente() throws IOException;
+    }
+
+    // Un objeto JSON por línea (las líneas en blanco se ignoran)
+    private static final class LectorNdjson extends LectorFilas {
+        private final ObjectReader lectorJson;
+
+        LectorNdjson(BufferedReader lector, ObjectReader lectorJson) {
+            super(lector);
+            this.lectorJson = lectorJson;
+        }
+
+        @Override
+        Fila siguiente() throws IOException {
+            String texto;
+            do {
+                texto = lector.readLine();
+                if (texto == null) return null;
+                linea++;
+            } while (texto.isBlank());
+
+            try {
+                return new Fila(linea, lectorJson.readValue(texto), null);
+            } catch (JsonProcessingException e) {
+                return new Fila(linea, null, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    // CSV con cabecera (titulo, descripcion y opcionalmente completada, en cualquier orden). Campos entre
+    // comillas dobles con "" para una comilla; pueden contener comas y saltos de línea
+    private static final class LectorCsv extends LectorFilas {
+        private int columnaTitulo = -1;
+        private int columnaDescripcion = -1;
+        private int columnaCompletada = -1;
+
+        LectorCsv(BufferedReader lector) throws IOException {
+            super(lector);
+            List<String> cabecera = registro();
+            if (cabecera == null) return; // Entrada vacía
+            for (int i = 0; i < cabecera.size(); i++) {
+                switch (cabecera.get(i).strip().toLowerCase()) {
+                    case "titulo" -> columnaTitulo = i;
+                    case "descripcion" -> columnaDescripcion = i;
+                    case "completada" -> columnaCompletada = i;
+                }
+            }
+            if (columnaTitulo < 0 || columnaDescripcion < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cabecera CSV debe tener las columnas titulo y descripcion");
+            }
+        }
+
+        @Override
+        Fila siguiente() throws IOException {
+            List<String> campos;
+            long inicio;
+            do {
+                inicio = linea + 1;
+                campos = registro();
+                if (campos == null) return null;
+            } while (campos.size() == 1 && campos.get(0).isBlank());
+
+            TareaRequest tarea = new TareaRequest();
+            tarea.setTitulo(campo(campos, columnaTitulo));
+            tarea.setDescripcion(campo(campos, columnaDescripcion));
+            String completada = campo(campos, columnaCompletada);
+            if (completada != null && !completada.isBlank()) {
+                switch (completada.strip().toLowerCase()) {
+                    case "true", "1" -> tarea.setCompletada(true);
+                    case "false", "0" -> tarea.setCompletada(false);
+                    default -> {
+                        return new Fila(inicio, null, "Valor de completada inválido: " + completada);
+                    }
+                }
+            }
+            return new Fila(inicio, tarea, null);
+        }
+
+        private static String campo(List<String> campos, int columna) {
+            return columna >= 0 && columna < campos.size() ? campos.get(columna) : null;
+        }
+
+        private List<String> registro() throws IOException {
+            String texto = lector.readLine();
+            if (texto == null) return null;
+            linea++;
+
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            while (true) {
+                for (int i = 0; i < texto.length(); i++) {
+                    char c = texto.charAt(i);
+                    if (entreComillas) {
+                        if (c != '"') {
+                            campo.append(c);
+                        } else if (i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                            campo.append('"');
+                            i++;
+                        } else {
+                            entreComillas = false;
+                        }
+                    } else if (c == '"') {
+                        entreComillas = true;
+                    } else if (c == ',') {
+                        campos.add(campo.toString());
+                        campo.setLength(0);
+                    } else {
+                        campo.append(c);
+                    }
+                }
+                if (!entreComillas) break;
+                texto = lector.readLine(); // Salto de línea dentro de un campo entre comillas
+                if (texto == null) break;
+                linea++;
+                campo.append('\n');
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+    }
+
+    // Contadores de una importación; solo escribe el hilo que importa, el resto lee la instantánea
+    private static final class Progreso {
+        private final int maxRechazos;
+        private final List<ProgresoImportacion.FilaRechazada> rechazos = new ArrayList<>();
+        private volatile boolean terminada;
+        private volatile long expiraNanos = Long.MAX_VALUE; // En curso no caduca
+        private volatile long leidas;
+        private volatile long importadas;
+        private volatile long rechazadas;
+
+        Progreso(int maxRechazos) {
+            this.maxRechazos = maxRechazos;
+        }
+
+        boolean caducado(long ahora) {
+            return expiraNanos != Long.MAX_VALUE && expiraNanos - ahora < 0;
+        }
+
+        void rechazar(long linea, String error) {
+            rechazadas++;
+            synchronized (rechazos) {
+                if (rechazos.size() < maxRechazos) rechazos.add(new ProgresoImportacion.FilaRechazada(linea, error));
+            }
+        }
+
+        ProgresoImportacion instantanea() {
+            List<ProgresoImportacion.FilaRechazada> copia;
+            synchronized (rechazos) {
+                copia = List.copyOf(rechazos);
+            }
+            return new ProgresoImportacion(terminada, leidas, importadas, rechazadas, copia);
+        }
+    }
+}
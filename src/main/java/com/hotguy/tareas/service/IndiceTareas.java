@@ -0,0 +1,245 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.config.IndiceProperties;
+import com.hotguy.tareas.dto.TareaView;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Vista materializada en memoria de las tareas de cada usuario activo: dos grupos (pendientes / completadas)
+// ordenados por fechaCreacion. Las lecturas no bloquean (instantánea inmutable); las escrituras copian y publican
+@Component
+public class IndiceTareas {
+
+    private static final Comparator<TareaView> POR_FECHA = Comparator.comparing(TareaView::fechaCreacion)
+            .thenComparing(TareaView::id);
+
+    private final IndiceProperties properties;
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong tareasEnMemoria = new AtomicLong();
+
+    public IndiceTareas(IndiceProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean habilitado() {
+        return properties.isHabilitado();
+    }
+
+    // Responde desde memoria; si el usuario no está indexado carga todas sus tareas (una consulta) y lo indexa
+    public List<TareaView> listar(String username, Boolean completada, Sort sort, Supplier<List<TareaView>> cargar) {
+        Entrada entrada = entradas.computeIfAbsent(username, u -> new Entrada());
+        entrada.ultimoAcceso = System.nanoTime();
+
+        Instantanea instantanea = entrada.instantanea;
+        if (instantanea == null) {
+            long cambiosAntes;
+            synchronized (entrada) {
+                cambiosAntes = entrada.cambios;
+            }
+            instantanea = Instantanea.de(cargar.get());
+            if (instantanea.tamano() > properties.getMaxTareas()) {
+                // No cabe: este usuario se sirve siempre desde la BD y no se le deja una entrada vacía
+                retirar(username, entrada);
+                return ordenar(instantanea, completada, sort);
+            }
+            instalar(username, entrada, instantanea, cambiosAntes);
+        }
+        return ordenar(instantanea, completada, sort);
+    }
+
+    // Alta o modificación confirmada: se aplica cuando la transacción hace commit (un rollback no toca el índice)
+    public void guardarTrasCommit(String username, TareaView tarea) {
+        trasCommit(() -> guardar(username, tarea));
+    }
+
+    // Para borrados y cambios que no se pueden aplicar tarea a tarea: el usuario se recarga en su próxima consulta
+    public void invalidarTrasCommit(String username) {
+        trasCommit(() -> invalidar(username));
+    }
+
+    public long tareasEnMemoria() {
+        return tareasEnMemoria.get();
+    }
+
+    int usuariosEnMemoria() {
+        return entradas.size();
+    }
+
+    void guardar(String username, TareaView tarea) {
+        Entrada entrada = entradas.get(username);
+        if (entrada == null) return;
+
+        synchronized (entrada) {
+            entrada.cambios++; // Una carga en curso ya no es fiable y no se instalará
+            Instantanea actual = entrada.instantanea;
+            if (actual == null) return;
+
+            Instantanea nueva = actual.con(tarea);
+            entrada.instantanea = nueva;
+            tareasEnMemoria.addAndGet(nueva.tamano() - actual.tamano());
+        }
+        // Las altas también hacen crecer el índice; los inactivos se retiran en el barrido periódico
+        if (tareasEnMemoria.get() > properties.getMaxTareas()) retirarMenosRecientes();
+    }
+
+    void invalidar(String username) {
+        Entrada entrada = entradas.get(username);
+        if (entrada != null) retirar(username, entrada);
+    }
+
+    private void trasCommit(Runnable accion) {
+        if (habilitado()) TrasCommit.ejecutar(accion);
+    }
+
+    private void instalar(String username, Entrada entrada, Instantanea instantanea, long cambiosAntes) {
+        synchronized (entrada) {
+            // Si hubo escrituras durante la carga (o se retiró la entrada) la lectura puede ser anterior a ellas
+            if (entrada.cambios != cambiosAntes || entradas.get(username) != entrada || entrada.instantanea != null) {
+                return;
+            }
+            entrada.instantanea = instantanea;
+            tareasEnMemoria.addAndGet(instantanea.tamano());
+        }
+        liberarMemoria();
+    }
+
+    private void retirar(String username, Entrada entrada) {
+        synchronized (entrada) {
+            entrada.cambios++;
+            if (entradas.remove(username, entrada) && entrada.instantanea != null) {
+                tareasEnMemoria.addAndGet(-entrada.instantanea.tamano());
+                entrada.instantanea = null;
+            }
+        }
+    }
+
+    // Primero fuera los usuarios inactivos; si aún se supera el presupuesto, los menos recientes. También en un
+    // barrido periódico: sin él, un usuario que deja de consultar seguiría en memoria hasta la siguiente carga
+    @Scheduled(fixedDelayString = "${indice.limpieza-ms:60000}", initialDelayString = "${indice.limpieza-ms:60000}")
+    public void liberarMemoria() {
+        long limiteInactividad = System.nanoTime() - properties.getInactividadSegundos() * 1_000_000_000L;
+        entradas.forEach((username, entrada) -> {
+            if (entrada.ultimoAcceso - limiteInactividad < 0) retirar(username, entrada);
+        });
+        retirarMenosRecientes();
+    }
+
+    private void retirarMenosRecientes() {
+        if (tareasEnMemoria.get() <= properties.getMaxTareas()) return;
+
+        List<Map.Entry<String, Entrada>> porAcceso = new ArrayList<>(entradas.entrySet());
+        porAcceso.sort(Comparator.comparingLong(e -> e.getValue().ultimoAcceso));
+        for (Map.Entry<String, Entrada> e : porAcceso) {
+            if (tareasEnMemoria.get() <= properties.getMaxTareas()) break;
+            retirar(e.getKey(), e.getValue());
+        }
+    }
+
+    // Mismo resultado que parsearOrden aplicado en SQL, recorriendo los grupos ya ordenados (sin reordenar)
+    private static List<TareaView> ordenar(Instantanea instantanea, Boolean completada, Sort sort) {
+        Sort.Order porFecha = sort.getOrderFor("fechaCreacion");
+        Sort.Order porEstado = sort.getOrderFor("completada");
+        boolean fechaDesc = porFecha != null && porFecha.isDescending();
+
+        List<TareaView> pendientes = fechaDesc ? instantanea.pendientes().reversed() : instantanea.pendientes();
+        List<TareaView> completadas = fechaDesc ? instantanea.completadas().reversed() : instantanea.completadas();
+
+        if (completada != null) {
+            return completada ? completadas : pendientes;
+        }
+
+        boolean estadoDesc = porEstado != null && porEstado.isDescending();
+        if (porEstado != null && "completada".equals(sort.iterator().next().getProperty())) {
+            List<TareaView> resultado = new ArrayList<>(pendientes.size() + completadas.size());
+            resultado.addAll(estadoDesc ? completadas : pendientes);
+            resultado.addAll(estadoDesc ? pendientes : completadas);
+            return resultado;
+        }
+
+        // Ordenado por fecha: mezcla de los dos grupos; el estado (si se pidió) solo desempata
+        Comparator<TareaView> comparador = Comparator.comparing(TareaView::fechaCreacion, direccion(fechaDesc))
+                .thenComparing(TareaView::completada, direccion(estadoDesc))
+                .thenComparing(TareaView::id, direccion(fechaDesc));
+        return mezclar(pendientes, completadas, comparador);
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<T> direccion(boolean descendente) {
+        return descendente ? Comparator.reverseOrder() : Comparator.naturalOrder();
+    }
+
+    private static List<TareaView> mezclar(List<TareaView> a, List<TareaView> b, Comparator<TareaView> comparador) {
+        List<TareaView> resultado = new ArrayList<>(a.size() + b.size());
+        int i = 0, j = 0;
+        while (i < a.size() && j < b.size()) {
+            resultado.add(comparador.compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+        }
+        while (i < a.size()) resultado.add(a.get(i++));
+        while (j < b.size()) resultado.add(b.get(j++));
+        return resultado;
+    }
+
+    private static final class Entrada {
+        volatile Instantanea instantanea; // null hasta que termina la primera carga
+        volatile long ultimoAcceso;
+        long cambios; // Protegido por synchronized (this)
+    }
+
+    // Inmutable: cada escritura crea una nueva y los lectores siguen con la que tenían
+    private record Instantanea(List<TareaView> pendientes, List<TareaView> completadas) {
+
+        static Instantanea de(List<TareaView> tareas) {
+            List<TareaView> pendientes = new ArrayList<>();
+            List<TareaView> completadas = new ArrayList<>();
+            for (TareaView tarea : tareas) {
+                (tarea.completada() ? completadas : pendientes).add(tarea);
+            }
+            pendientes.sort(POR_FECHA);
+            completadas.sort(POR_FECHA);
+            return new Instantanea(Collections.unmodifiableList(pendientes), Collections.unmodifiableList(completadas));
+        }
+
+        int tamano() {
+            return pendientes.size() + completadas.size();
+        }
+
+        // Sustituye (o añade) la tarea; una versión más antigua que la indexada llega tarde y se ignora
+        Instantanea con(TareaView tarea) {
+            TareaView anterior = buscar(pendientes, tarea.id());
+            if (anterior == null) anterior = buscar(completadas, tarea.id());
+            if (anterior != null && anterior.version() >= tarea.version()) return this;
+
+            return new Instantanea(
+                    sustituir(pendientes, anterior, tarea.completada() ? null : tarea),
+                    sustituir(completadas, anterior, tarea.completada() ? tarea : null));
+        }
+
+        private static TareaView buscar(List<TareaView> grupo, Long id) {
+            for (TareaView tarea : grupo) {
+                if (tarea.id().equals(id)) return tarea;
+            }
+            return null;
+        }
+
+        private static List<TareaView> sustituir(List<TareaView> grupo, TareaView quitar, TareaView poner) {
+            if (poner == null && (quitar == null || !grupo.contains(quitar))) return grupo;
+
+            List<TareaView> copia = new ArrayList<>(grupo);
+            if (quitar != null) copia.remove(quitar);
+            if (poner != null) {
+                int posicion = Collections.binarySearch(copia, poner, POR_FECHA);
+                copia.add(posicion < 0 ? -posicion - 1 : posicion, poner);
+            }
+            return Collections.unmodifiableList(copia);
+        }
+    }
+}
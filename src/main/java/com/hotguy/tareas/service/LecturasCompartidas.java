@@ -0,0 +1,67 @@
+package com.hotguy.tareas.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// "Single flight" de lecturas: peticiones idénticas y simultáneas del mismo usuario (varias pestañas) comparten
+// una única consulta y el mismo resultado ya serializado. Solo guarda lo que está en curso, no es una caché
+@Component
+public class LecturasCompartidas {
+
+    private record Clave(String username, String consulta) {
+    }
+
+    private final Map<Clave, CompletableFuture<Object>> enVuelo = new ConcurrentHashMap<>();
+    private final Counter compartidas;
+
+    public LecturasCompartidas(MeterRegistry registry) {
+        this.compartidas = Counter.builder("lecturas.compartidas")
+                .description("Lecturas servidas con el resultado de otra idéntica que ya estaba en curso")
+                .register(registry);
+    }
+
+    // El primero ejecuta "cargar"; los que llegan mientras tanto esperan y reciben el mismo objeto (no modificarlo).
+    // Una misma consulta devuelve siempre el mismo tipo
+    @SuppressWarnings("unchecked")
+    public <T> T leer(String username, String consulta, Supplier<T> cargar) {
+        Clave clave = new Clave(username, consulta);
+        CompletableFuture<Object> propio = new CompletableFuture<>();
+        CompletableFuture<Object> existente = enVuelo.putIfAbsent(clave, propio);
+        if (existente != null) {
+            compartidas.increment();
+            try {
+                return (T) existente.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException causa) throw causa;
+                throw e;
+            }
+        }
+
+        try {
+            T resultado = cargar.get();
+            propio.complete(resultado);
+            return resultado;
+        } catch (RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(clave, propio);
+        }
+    }
+
+    // Tras una escritura nadie debe unirse a una lectura empezada antes: la siguiente petición lanza otra
+    public void invalidarTrasCommit(String username) {
+        TrasCommit.ejecutar(() -> invalidar(username));
+    }
+
+    void invalidar(String username) {
+        enVuelo.keySet().removeIf(clave -> clave.username().equals(username)); // Solo contiene lo que está en curso
+    }
+}
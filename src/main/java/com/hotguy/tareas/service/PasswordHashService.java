@@ -0,0 +1,92 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.config.HashProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Ejecuta el trabajo de BCrypt en un pool propio y acotado para que un pico de logins no agote los hilos de Tomcat
+@Service
+public class PasswordHashService {
+
+    private final ThreadPoolExecutor executor;
+    private final HashProperties hashProperties;
+    private final Timer latencia;
+    private final Counter rechazos;
+
+    public PasswordHashService(HashProperties hashProperties, MeterRegistry registry) {
+        this.hashProperties = hashProperties;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                hashProperties.getHilos(), hashProperties.getHilos(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashProperties.getCola()), // Cola acotada: si se llena, AbortPolicy rechaza
+                r -> {
+                    Thread hilo = new Thread(r, "hash-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("hash.cola", executor, e -> e.getQueue().size())
+                .description("Peticiones esperando un hilo de hash")
+                .register(registry);
+        Gauge.builder("hash.activos", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos calculando un hash ahora mismo")
+                .register(registry);
+        this.latencia = Timer.builder("hash.latencia")
+                .description("Tiempo de cálculo de BCrypt (sin la espera en cola)")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.rechazos = Counter.builder("hash.rechazos")
+                .description("Peticiones rechazadas con 429 por cola llena o timeout")
+                .register(registry);
+    }
+
+    // Ejecuta el trabajo en el pool y espera el resultado; lanza HashSaturadoException si no hay sitio o tarda demasiado
+    public <T> T ejecutar(Supplier<T> trabajo) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> latencia.record(trabajo));
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new HashSaturadoException(hashProperties.getRetryAfterSegundos());
+        }
+
+        try {
+            return futuro.get(hashProperties.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rechazos.increment();
+            throw new HashSaturadoException(hashProperties.getRetryAfterSegundos());
+        } catch (ExecutionException e) {
+            // Propagamos la excepción original (p. ej. BadCredentialsException)
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.cancel(true);
+            throw new IllegalStateException("Interrumpido esperando el hash", e);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,131 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.dto.ResultadoRebalanceo;
+import com.hotguy.tareas.repository.DirectorioShards;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Activa el siguiente shard configurado y le mueve sus usuarios. Con hash "jump" solo cambian de shard ~1/(n+1)
+// de los usuarios y todos van al nuevo. Cada usuario se mueve con su fila bloqueada en el shard de origen: sus
+// escrituras esperan y, al soltarse, ven que ya no están en su shard y responden 503 (el cliente reintenta).
+// Las lecturas siguen en el origen hasta que la copia está confirmada en el destino.
+// El estado del rebalanceo vive en memoria de esta instancia: con varias instancias, o tras reiniciar, hay que
+// poner antes shards.activos al valor devuelto
+@Service
+public class RebalanceadorShards {
+
+    private static final int TAMANO_LOTE = 500;
+    private static final String COLUMNAS_TAREAS =
+            "id, titulo, descripcion, completada, fecha_creacion, fecha_actualizacion, version, usuario_id, secuencia_cambio";
+    private static final String COLUMNAS_LAPIDAS = "tarea_id, usuario_id, secuencia_cambio, fecha_eliminacion";
+    private static final String COLUMNAS_ARCHIVO = COLUMNAS_TAREAS + ", fecha_archivado";
+
+    private final DirectorioShards shards;
+
+    public RebalanceadorShards(DirectorioShards shards) {
+        this.shards = shards;
+    }
+
+    // Si falla a medias se puede repetir: los usuarios ya movidos se saltan y el destino se limpia antes de copiar
+    public synchronized ResultadoRebalanceo anadirShard() {
+        if (!shards.habilitado()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Sharding deshabilitado");
+        }
+        int activos = shards.activos();
+        if (activos >= shards.numero()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "No queda ningún nodo sin usar en shards.nodos");
+        }
+        int nuevo = activos;
+
+        List<Long> usuarios = new JdbcTemplate(shards.nodo(0)).queryForList("SELECT id FROM usuarios ORDER BY id", Long.class);
+        long usuariosMovidos = 0;
+        long tareasMovidas = 0;
+        for (long id : usuarios) {
+            int origen = shards.shardDe(id);
+            if (origen == nuevo || DirectorioShards.jump(id, activos + 1) != nuevo) continue;
+            tareasMovidas += mover(id, origen, nuevo);
+            usuariosMovidos++;
+        }
+        shards.completarRebalanceo(activos + 1);
+        return new ResultadoRebalanceo(nuevo, activos + 1, usuariosMovidos, tareasMovidas);
+    }
+
+    private long mover(long usuarioId, int origen, int destino) {
+        try (Connection conOrigen = shards.nodo(origen).getConnection();
+             Connection conDestino = shards.nodo(destino).getConnection()) {
+            conOrigen.setAutoCommit(false);
+            conDestino.setAutoCommit(false);
+            JdbcTemplate o = new JdbcTemplate(new SingleConnectionDataSource(conOrigen, true));
+            JdbcTemplate d = new JdbcTemplate(new SingleConnectionDataSource(conDestino, true));
+            try {
+                Map<String, Object> usuario = o.queryForMap(
+                        "SELECT username, secuencia_cambios FROM usuarios WHERE id = ? FOR UPDATE", usuarioId);
+
+                // Restos de un intento anterior que falló antes de terminar
+                d.update("DELETE FROM tareas_eliminadas WHERE usuario_id = ?", usuarioId);
+                d.update("DELETE FROM tareas_archivo WHERE usuario_id = ?", usuarioId);
+                d.update("DELETE FROM tareas WHERE usuario_id = ?", usuarioId);
+                d.update("DELETE FROM usuarios WHERE id = ?", usuarioId);
+
+                // Sin password ni rol, como las copias de DirectorioShards: esos solo valen en el directorio
+                d.update("INSERT INTO usuarios (id, username, secuencia_cambios) VALUES (?, ?, ?)",
+                        usuarioId, usuario.get("username"), usuario.get("secuencia_cambios"));
+                copiar(o, d, "tareas", COLUMNAS_TAREAS, usuarioId);
+                copiar(o, d, "tareas_eliminadas", COLUMNAS_LAPIDAS, usuarioId);
+                copiar(o, d, "tareas_archivo", COLUMNAS_ARCHIVO, usuarioId);
+                conDestino.commit();
+            } catch (RuntimeException e) {
+                conDestino.rollback();
+                conOrigen.rollback();
+                throw e;
+            }
+
+            // Desde aquí las transacciones nuevas del usuario van al destino; el origen se limpia con la fila aún bloqueada
+            shards.marcarMovido(usuarioId, destino);
+            o.update("DELETE FROM tareas_eliminadas WHERE usuario_id = ?", usuarioId);
+            o.update("DELETE FROM tareas_archivo WHERE usuario_id = ?", usuarioId);
+            int tareas = o.update("DELETE FROM tareas WHERE usuario_id = ?", usuarioId);
+            if (origen != 0) {
+                o.update("DELETE FROM usuarios WHERE id = ?", usuarioId); // En el 0 es la fila del directorio
+            }
+            conOrigen.commit();
+            return tareas;
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo mover el usuario " + usuarioId + " al shard " + destino, e);
+        }
+    }
+
+    // Lectura en streaming del origen e INSERT en lotes JDBC en el destino
+    private static long copiar(JdbcTemplate origen, JdbcTemplate destino, String tabla, String columnas, long usuarioId) {
+        int n = columnas.split(",").length;
+        String insert = "INSERT INTO " + tabla + " (" + columnas + ") VALUES (" + "?, ".repeat(n - 1) + "?)";
+        List<Object[]> lote = new ArrayList<>(TAMANO_LOTE);
+        long[] copiadas = {0};
+        origen.query("SELECT " + columnas + " FROM " + tabla + " WHERE usuario_id = ?", rs -> {
+            Object[] fila = new Object[n];
+            for (int i = 0; i < n; i++) {
+                fila[i] = rs.getObject(i + 1);
+            }
+            lote.add(fila);
+            if (lote.size() == TAMANO_LOTE) {
+                destino.batchUpdate(insert, lote);
+                copiadas[0] += lote.size();
+                lote.clear();
+            }
+        }, usuarioId);
+        if (!lote.isEmpty()) {
+            destino.batchUpdate(insert, lote);
+            copiadas[0] += lote.size();
+        }
+        return copiadas[0];
+    }
+}
@@ -1,43 +1,176 @@
 package com.hotguy.tareas.service;
 
+import com.hotguy.tareas.config.CambiosProperties;
+import com.hotguy.tareas.dto.CambiosTareas;
+import com.hotguy.tareas.dto.EventoTarea;
+import com.hotguy.tareas.dto.OperacionLote;
+import com.hotguy.tareas.dto.PaginaTareas;
+import com.hotguy.tareas.dto.ResultadoOperacion;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.dto.VersionColeccion;
 import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.TareaArchivada;
+import com.hotguy.tareas.model.TareaEliminada;
 import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.DirectorioShards;
+import com.hotguy.tareas.repository.TareaArchivadaRepository;
+import com.hotguy.tareas.repository.TareaEliminadaRepository;
 import com.hotguy.tareas.repository.TareaRepository;
 import com.hotguy.tareas.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service // Esta anotación indica que esta clase será inyectada como servicio
 public class TareaService {
 
     private final TareaRepository tareaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final Validator validator;
+    private final IndiceTareas indiceTareas;
+    private final TareaEliminadaRepository tareaEliminadaRepository;
+    private final CambiosProperties cambiosProperties;
+    private final CanalEventos canalEventos;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final DirectorioShards shards;
+    private final TareaArchivadaRepository tareaArchivadaRepository;
+    private final EntityManagerFactory entityManagerFactory;
 
-    public TareaService(TareaRepository tareaRepository, UsuarioRepository usuarioRepository) {
+    // Cada método fija el shard del usuario antes de su primera consulta (sin sharding no hace nada)
+    public TareaService(TareaRepository tareaRepository, UsuarioRepository usuarioRepository, Validator validator,
+                        IndiceTareas indiceTareas, TareaEliminadaRepository tareaEliminadaRepository,
+                        CambiosProperties cambiosProperties, CanalEventos canalEventos,
+                        LecturasCompartidas lecturasCompartidas, DirectorioShards shards,
+                        TareaArchivadaRepository tareaArchivadaRepository, EntityManagerFactory entityManagerFactory) {
         this.tareaRepository = tareaRepository;
         this.usuarioRepository = usuarioRepository;
+        this.validator = validator;
+        this.indiceTareas = indiceTareas;
+        this.tareaEliminadaRepository = tareaEliminadaRepository;
+        this.cambiosProperties = cambiosProperties;
+        this.canalEventos = canalEventos;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.shards = shards;
+        this.tareaArchivadaRepository = tareaArchivadaRepository;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
+    @Transactional
     public Tarea crearTarea(String titulo, String descripcion) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Usuario usuario = usuarioRepository.findByUsername(username).orElseThrow();
+        shards.fijar(username);
+        Usuario usuario = bloquearUsuario(username);
 
         Tarea tarea = new Tarea();
         tarea.setTitulo(titulo);
         tarea.setDescripcion(descripcion);
         tarea.setUsuario(usuario); // vínculo con el usuario
-        return tareaRepository.save(tarea);
+        tarea.setSecuenciaCambio(siguienteCambio(usuario));
+        Tarea guardada = tareaRepository.save(tarea);
+        TareaView vista = TareaView.de(guardada);
+        indiceTareas.guardarTrasCommit(username, vista);
+        lecturasCompartidas.invalidarTrasCommit(username);
+        canalEventos.publicarTrasCommit(username, EventoTarea.creada(vista, guardada.getSecuenciaCambio()));
+        return guardada;
     }
 
-    public List<Tarea> obtenerTareasFiltradasYOrdenadas(String username, Boolean completada, String orden) {
-        Usuario usuario = usuarioRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+
+    // Solo lectura: proyecciones TareaView en una única consulta (sin cargar Usuario ni entidades Tarea)
+    @Transactional(readOnly = true)
+    public List<TareaView> obtenerTareasFiltradasYOrdenadas(String username, Boolean completada, String orden) {
+        shards.fijar(username);
+        Sort sort = parsearOrden(orden);
+
+        // Con el índice en memoria activo solo la primera consulta del usuario llega a la BD
+        if (indiceTareas.habilitado()) {
+            return indiceTareas.listar(username, completada, sort,
+                    () -> tareaRepository.findByUsuarioUsername(username, Sort.unsorted()));
+        }
+
+        if (completada == null) {
+            return tareaRepository.findByUsuarioUsername(username, sort);
+        } else {
+            return tareaRepository.findByUsuarioUsernameAndCompletada(username, completada, sort);
+        }
+    }
+
+    // Las activas más las que movió el archivador (todas completadas), en el mismo orden
+    @Transactional(readOnly = true)
+    public List<TareaView> obtenerTareasConArchivadas(String username, Boolean completada, String orden) {
+        List<TareaView> activas = obtenerTareasFiltradasYOrdenadas(username, completada, orden);
+        if (Boolean.FALSE.equals(completada)) {
+            return activas;
+        }
+        Sort sort = parsearOrden(orden);
+        List<TareaView> todas = new ArrayList<>(activas);
+        todas.addAll(tareaArchivadaRepository.findVistasByUsername(username, sort));
+        todas.sort(comparador(sort));
+        return todas;
+    }
+
+    private static Comparator<TareaView> comparador(Sort sort) {
+        Comparator<TareaView> comparador = (a, b) -> 0;
+        for (Sort.Order orden : sort) {
+            Comparator<TareaView> campo = "completada".equals(orden.getProperty())
+                    ? Comparator.comparing(TareaView::completada)
+                    : Comparator.comparing(TareaView::fechaCreacion, Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparador = comparador.thenComparing(orden.isDescending() ? campo.reversed() : campo);
+        }
+        return comparador.thenComparing(TareaView::id);
+    }
 
+    // Barato comparado con listar: permite responder 304 sin cargar ni serializar las tareas
+    @Transactional(readOnly = true)
+    public VersionColeccion obtenerVersionColeccion(String username) {
+        shards.fijar(username);
+        return tareaRepository.obtenerVersionColeccion(username);
+    }
+
+    // Igual que la anterior pero por páginas con cursor (keyset): el coste no depende de lo profundo que se pagine
+    @Transactional(readOnly = true)
+    public PaginaTareas obtenerPaginaTareas(String username, Boolean completada, String orden, String cursor, Integer limite) {
+        shards.fijar(username);
+        Sort sort = parsearOrden(orden);
+        ScrollPosition posicion = decodificarCursor(cursor, sort);
+        Limit limit = Limit.of(limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO)));
+
+        Window<TareaView> ventana = completada == null
+                ? tareaRepository.findByUsuarioUsername(username, posicion, sort, limit)
+                : tareaRepository.findByUsuarioUsernameAndCompletada(username, completada, posicion, sort, limit);
+
+        String siguiente = null;
+        if (ventana.hasNext() && !ventana.isEmpty()) {
+            siguiente = codificarCursor(ventana.getContent().get(ventana.size() - 1), sort);
+        }
+        return new PaginaTareas(ventana.getContent(), siguiente);
+    }
+
+    // Convierte "fecha_desc,estado_asc"... en un Sort (por defecto, más recientes primero)
+    public static Sort parsearOrden(String orden) {
         List<Sort.Order> ordenes = new ArrayList<>();
 
         for (String campo : orden.split(",")) {
@@ -49,42 +182,305 @@ public class TareaService {
             }
         }
 
-        Sort sort = ordenes.isEmpty() ? Sort.by("fechaCreacion").descending() : Sort.by(ordenes);
+        return ordenes.isEmpty() ? Sort.by("fechaCreacion").descending() : Sort.by(ordenes);
+    }
 
-        if (completada == null) {
-            return tareaRepository.findByUsuario(usuario, sort);
-        } else {
-            return tareaRepository.findByUsuarioAndCompletada(usuario, completada, sort);
+    // El cursor guarda los valores de la última tarea devuelta: "completada|fechaCreacion|id" en Base64 URL
+    private String codificarCursor(TareaView ultima, Sort sort) {
+        String completada = sort.getOrderFor("completada") != null ? String.valueOf(ultima.completada()) : "";
+        String crudo = completada + "|" + ultima.fechaCreacion() + "|" + ultima.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ScrollPosition decodificarCursor(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String crudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = crudo.split("\\|", -1);
+
+            Map<String, Object> claves = new LinkedHashMap<>();
+            if (sort.getOrderFor("completada") != null) {
+                claves.put("completada", Boolean.parseBoolean(partes[0]));
+            }
+            if (sort.getOrderFor("fechaCreacion") != null) {
+                claves.put("fechaCreacion", LocalDateTime.parse(partes[1]));
+            }
+            claves.put("id", Long.parseLong(partes[2]));
+            return ScrollPosition.forward(claves);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
         }
     }
 
-    public Tarea toggleCompletada(Long id) {
-        Tarea tarea = tareaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Tarea no encontrada"));
+    @Transactional
+    public TareaView toggleCompletada(Long id, String username) {
+        shards.fijar(username);
+        long secuencia = siguienteCambio(bloquearUsuario(username)); // La UPDATE masiva hace flush del contador antes
+        int filas = tareaRepository.alternarCompletada(id, username, secuencia, LocalDateTime.now());
+        if (filas == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tarea no encontrada");
+        }
+        expulsarDeCache(id);
+        TareaView vista = tareaRepository.findVistaById(id).orElseThrow();
+        indiceTareas.guardarTrasCommit(username, vista);
+        lecturasCompartidas.invalidarTrasCommit(username);
+        canalEventos.publicarTrasCommit(username, EventoTarea.actualizada(vista, secuencia));
+        return vista;
+    }
 
-        tarea.setCompletada(!tarea.isCompletada()); // Invierte el estado actual
-//        tarea.setFechaActualizacion(LocalDateTime.now());
+    @Transactional
+    public TareaView editarTarea(Long id, String username, String descripcion, Boolean completada, Long version) {
+        // La UPDATE masiva no pasa por Bean Validation: se repite aquí la regla de Tarea.descripcion
+        if (descripcion != null && (descripcion.isBlank() || descripcion.length() < 3)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La descripción debe tener al menos 3 caracteres");
+        }
 
-        return tareaRepository.save(tarea);
+        shards.fijar(username);
+        long secuencia = siguienteCambio(bloquearUsuario(username));
+        int filas = tareaRepository.editar(id, username, descripcion, completada, version, secuencia, LocalDateTime.now());
+        if (filas == 0) {
+            // Si la tarea existe y es suya, lo que falló fue la versión: otro la modificó antes
+            if (version != null && tareaRepository.existsByIdAndUsuarioUsername(id, username)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "La tarea fue modificada por otra petición");
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tarea no encontrada");
+        }
+        expulsarDeCache(id);
+        TareaView vista = tareaRepository.findVistaById(id).orElseThrow();
+        indiceTareas.guardarTrasCommit(username, vista);
+        lecturasCompartidas.invalidarTrasCommit(username);
+        canalEventos.publicarTrasCommit(username, EventoTarea.actualizada(vista, secuencia));
+        return vista;
+    }
+
+    // Las UPDATE nativas no tocan la caché de segundo nivel: se quita solo esta tarea, ya y otra vez tras el commit
+    // por si otra transacción la volvió a cargar con el valor anterior mientras tanto
+    private void expulsarDeCache(Long id) {
+        entityManagerFactory.getCache().evict(Tarea.class, id);
+        TrasCommit.ejecutar(() -> entityManagerFactory.getCache().evict(Tarea.class, id));
     }
 
-    public Tarea editarTarea(Long id, String descripcion, Boolean completada) {
-        Tarea tarea = tareaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Tarea no encontrada"));
+    public static final int MAX_OPERACIONES_LOTE = 1000;
+
+    // Aplica todas las operaciones en una transacción; el flush final sale en lotes JDBC (hibernate.jdbc.batch_size)
+    @Transactional
+    public List<ResultadoOperacion> aplicarLote(String username, boolean esAdmin, List<OperacionLote> operaciones) {
+        if (operaciones.size() > MAX_OPERACIONES_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Máximo " + MAX_OPERACIONES_LOTE + " operaciones por lote");
+        }
+        shards.fijar(username);
+        Usuario usuario = bloquearUsuario(username);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        // Una sola SELECT para todas las tareas existentes que toca el lote
+        Set<Long> ids = new HashSet<>();
+        for (OperacionLote op : operaciones) {
+            if (op.getTipo() != OperacionLote.Tipo.CREAR && op.getId() != null) ids.add(op.getId());
+        }
+        Map<Long, Tarea> tareas = new HashMap<>();
+        if (!ids.isEmpty()) {
+            tareaRepository.findByIdInAndUsuarioUsername(ids, username).forEach(t -> tareas.put(t.getId(), t));
+        }
+
+        // Primero se aplican los cambios en memoria; los resultados OK se completan tras el flush (ids y versiones)
+        Tarea[] afectadas = new Tarea[operaciones.size()];
+        ResultadoOperacion[] resultados = new ResultadoOperacion[operaciones.size()];
+        boolean huboBorrados = false;
+        for (int i = 0; i < operaciones.size(); i++) {
+            OperacionLote op = operaciones.get(i);
+            OperacionLote.Tipo tipo = op.getTipo();
+
+            if (tipo == null) {
+                resultados[i] = ResultadoOperacion.error(i, null, 400, op.getId(), "Tipo de operación obligatorio");
+                continue;
+            }
+            if (tipo == OperacionLote.Tipo.CREAR) {
+                Tarea nueva = new Tarea(op.getTitulo(), op.getDescripcion());
+                nueva.setUsuario(usuario);
+                String error = primerError(nueva);
+                if (error != null) {
+                    resultados[i] = ResultadoOperacion.error(i, tipo, 400, null, error);
+                } else {
+                    nueva.setSecuenciaCambio(siguienteCambio(usuario));
+                    afectadas[i] = tareaRepository.save(nueva); // Con secuencia pooled no hay INSERT inmediato
+                }
+                continue;
+            }
+
+            Tarea tarea = op.getId() == null ? null : tareas.get(op.getId());
+            if (tarea == null) {
+                resultados[i] = ResultadoOperacion.error(i, tipo, 404, op.getId(), "Tarea no encontrada");
+                continue;
+            }
+            switch (tipo) {
+                case ALTERNAR -> {
+                    tarea.setCompletada(!tarea.isCompletada());
+                    tarea.setSecuenciaCambio(siguienteCambio(usuario));
+                    afectadas[i] = tarea;
+                }
+                case EDITAR -> {
+                    if (op.getVersion() != null && op.getVersion() != tarea.getVersion()) {
+                        resultados[i] = ResultadoOperacion.error(i, tipo, 409, tarea.getId(), "La tarea fue modificada por otra petición");
+                    } else if (op.getDescripcion() != null && (op.getDescripcion().isBlank() || op.getDescripcion().length() < 3)) {
+                        resultados[i] = ResultadoOperacion.error(i, tipo, 400, tarea.getId(), "La descripción debe tener al menos 3 caracteres");
+                    } else {
+                        if (op.getDescripcion() != null) tarea.setDescripcion(op.getDescripcion());
+                        if (op.getCompletada() != null) tarea.setCompletada(op.getCompletada());
+                        tarea.setSecuenciaCambio(siguienteCambio(usuario));
+                        afectadas[i] = tarea;
+                    }
+                }
+                case ELIMINAR -> {
+                    if (!esAdmin) {
+                        resultados[i] = ResultadoOperacion.error(i, tipo, 403, tarea.getId(), "Solo un ADMIN puede eliminar tareas");
+                    } else {
+                        long secuencia = siguienteCambio(usuario);
+                        tareaRepository.delete(tarea);
+                        tareaEliminadaRepository.save(new TareaEliminada(tarea.getId(), usuario.getId(), secuencia, ahora));
+                        canalEventos.publicarTrasCommit(username, EventoTarea.eliminada(tarea.getId(), secuencia));
+                        tareas.remove(tarea.getId()); // Operaciones posteriores sobre ella darán 404
+                        huboBorrados = true;
+                        resultados[i] = ResultadoOperacion.ok(i, tipo, 204, tarea.getId(), null);
+                    }
+                }
+                default -> throw new IllegalStateException("Tipo no soportado: " + tipo);
+            }
+        }
 
-        if (descripcion != null) tarea.setDescripcion(descripcion);
-        if (completada != null) tarea.setCompletada(completada);
-//        tarea.setFechaActualizacion(LocalDateTime.now());
+        tareaRepository.flush(); // INSERT/UPDATE/DELETE agrupados en lotes JDBC
+        lecturasCompartidas.invalidarTrasCommit(username);
 
-        return tareaRepository.save(tarea);
+        if (huboBorrados) {
+            indiceTareas.invalidarTrasCommit(username);
+        }
+
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == null) {
+                Tarea tarea = afectadas[i];
+                TareaView vista = TareaView.de(tarea); // Tras el flush ya tiene id, fechas y versión
+                boolean creada = operaciones.get(i).getTipo() == OperacionLote.Tipo.CREAR;
+                indiceTareas.guardarTrasCommit(username, vista);
+                canalEventos.publicarTrasCommit(username, creada
+                        ? EventoTarea.creada(vista, tarea.getSecuenciaCambio())
+                        : EventoTarea.actualizada(vista, tarea.getSecuenciaCambio()));
+                int estado = creada ? 201 : 200;
+                resultados[i] = ResultadoOperacion.ok(i, operaciones.get(i).getTipo(), estado, tarea.getId(), tarea.getVersion());
+            }
+        }
+        return List.of(resultados);
     }
 
+    // Validamos antes de persistir para rechazar solo esa operación y no abortar todo el lote
+    private String primerError(Tarea tarea) {
+        Set<ConstraintViolation<Tarea>> violaciones = validator.validate(tarea);
+        return violaciones.isEmpty() ? null : violaciones.iterator().next().getMessage();
+    }
 
+    // También borra tareas ya archivadas: son de solo lectura para su dueño, pero un ADMIN puede quitarlas
+    @Transactional
     public boolean eliminarTarea(Long id) {
-        if (tareaRepository.existsById(id)) {
-            tareaRepository.deleteById(id);
-            return true;
+        shards.fijarPorTarea(id);
+        Optional<Tarea> tarea = tareaRepository.findById(id);
+        Optional<TareaArchivada> archivada = tarea.isPresent() ? Optional.empty() : tareaArchivadaRepository.findById(id);
+        if (tarea.isEmpty() && archivada.isEmpty()) {
+            return false;
+        }
+        // El borrado lo hace un ADMIN: la lápida, la secuencia y el índice son los del dueño, no los del que borra
+        Long duenoId = tarea.isPresent() ? tarea.get().getUsuario().getId() : archivada.get().getUsuarioId();
+        Usuario dueno = comprobarShard(usuarioRepository.bloquearPorId(duenoId).orElseThrow());
+        long secuencia = siguienteCambio(dueno);
+        if (tarea.isPresent()) {
+            tareaRepository.delete(tarea.get());
+        } else {
+            tareaArchivadaRepository.delete(archivada.get());
+        }
+        tareaEliminadaRepository.save(new TareaEliminada(id, dueno.getId(), secuencia, LocalDateTime.now()));
+        indiceTareas.invalidarTrasCommit(dueno.getUsername());
+        lecturasCompartidas.invalidarTrasCommit(dueno.getUsername());
+        canalEventos.publicarTrasCommit(dueno.getUsername(), EventoTarea.eliminada(id, secuencia));
+        return true;
+    }
+
+    // Delta desde la marca: solo lo cambiado en (desde, hasta], así que el coste depende de los cambios, no del total.
+    // "hasta" es el contador confirmado leído antes que nada: todo cambio <= hasta ya hizo commit y es visible
+    @Transactional(readOnly = true)
+    public CambiosTareas obtenerCambios(String username, String marca, Integer limite) {
+        shards.fijar(username);
+        Usuario usuario = usuarioRepository.findByUsername(username)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado"));
+        boolean inicial = marca == null || marca.isBlank();
+        long desde = inicial ? -1 : decodificarMarca(marca); // Las tareas anteriores a la migración tienen secuencia 0
+        long hasta = usuarioRepository.obtenerSecuenciaCambios(usuario.getId());
+        int n = limite == null ? LIMITE_MAXIMO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        List<Tarea> tareas = tareaRepository.findByUsuarioIdAndSecuenciaCambioBetweenOrderBySecuenciaCambio(
+                usuario.getId(), desde + 1, hasta, Limit.of(n + 1));
+        // En la primera sincronización el cliente no tiene nada que borrar
+        List<TareaEliminada> lapidas = inicial ? List.of()
+                : tareaEliminadaRepository.findByUsuarioIdAndSecuenciaCambioBetweenOrderBySecuenciaCambio(
+                        usuario.getId(), desde + 1, hasta, Limit.of(n + 1));
+
+        // Mezcla de las dos listas por secuencia hasta n elementos
+        List<TareaView> actualizadas = new ArrayList<>();
+        List<Long> eliminadas = new ArrayList<>();
+        long ultima = hasta;
+        int i = 0, j = 0;
+        while (actualizadas.size() + eliminadas.size() < n && (i < tareas.size() || j < lapidas.size())) {
+            if (j >= lapidas.size() || (i < tareas.size() && tareas.get(i).getSecuenciaCambio() < lapidas.get(j).getSecuenciaCambio())) {
+                Tarea tarea = tareas.get(i++);
+                actualizadas.add(TareaView.de(tarea));
+                ultima = tarea.getSecuenciaCambio();
+            } else {
+                TareaEliminada lapida = lapidas.get(j++);
+                eliminadas.add(lapida.getId());
+                ultima = lapida.getSecuenciaCambio();
+            }
+        }
+        boolean hayMas = i < tareas.size() || j < lapidas.size();
+        return new CambiosTareas(actualizadas, eliminadas, codificarMarca(hayMas ? ultima : hasta), hayMas);
+    }
+
+    // Bloquea la fila del usuario hasta el commit: sus escrituras se serializan y la secuencia sigue el orden de commit
+    private Usuario bloquearUsuario(String username) {
+        return comprobarShard(usuarioRepository.bloquearPorUsername(username)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado")));
+    }
+
+    // Si un rebalanceo movió al usuario mientras esperábamos su bloqueo, este shard ya no tiene sus tareas
+    private Usuario comprobarShard(Usuario usuarioBloqueado) {
+        if (!shards.enSuShard(usuarioBloqueado.getId())) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Tareas del usuario cambiando de shard, reintenta");
+        }
+        return usuarioBloqueado;
+    }
+
+    private static long siguienteCambio(Usuario usuarioBloqueado) {
+        usuarioBloqueado.setSecuenciaCambios(usuarioBloqueado.getSecuenciaCambios() + 1);
+        return usuarioBloqueado.getSecuenciaCambios();
+    }
+
+    // La marca lleva la secuencia y cuándo se emitió: pasada la retención pudo perder lápidas y se rechaza
+    private static String codificarMarca(long secuencia) {
+        String crudo = secuencia + "|" + System.currentTimeMillis();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodificarMarca(String marca) {
+        long secuencia;
+        long emitida;
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(marca), StandardCharsets.UTF_8).split("\\|");
+            secuencia = Long.parseLong(partes[0]);
+            emitida = Long.parseLong(partes[1]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Marca inválida", e);
+        }
+        long retencionMs = cambiosProperties.getRetencionHoras() * 3_600_000L;
+        if (System.currentTimeMillis() - emitida > retencionMs) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Marca caducada: sincroniza de nuevo sin 'since'");
         }
-        return false;
+        return secuencia;
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.hotguy.tareas.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Efectos fuera de la BD (índice en memoria, eventos SSE) que solo deben ocurrir si la transacción confirma
+final class TrasCommit {
+
+    private TrasCommit() {
+    }
+
+    static void ejecutar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run(); // Sin transacción externa el repositorio ya confirmó el cambio
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.hotguy.tareas.service;
 
+import com.hotguy.tareas.config.EnrutadorDataSource;
 import com.hotguy.tareas.dto.UsuarioRequest;
 import com.hotguy.tareas.mapper.UsuarioMapper;
 import com.hotguy.tareas.model.Usuario;
 import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.security.MarcasCambioRol;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,31 +23,44 @@ public class UsuarioService implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
     private final UsuarioMapper usuarioMapper;
+    private final MarcasCambioRol marcasCambioRol;
+    private final Timer tiempoCarga;
 
-    public UsuarioService(UsuarioRepository usuarioRepository, UsuarioMapper usuarioMapper) {
+    public UsuarioService(UsuarioRepository usuarioRepository, UsuarioMapper usuarioMapper, MarcasCambioRol marcasCambioRol, MeterRegistry registry) {
         this.usuarioRepository = usuarioRepository;
         this.usuarioMapper = usuarioMapper;
+        this.marcasCambioRol = marcasCambioRol;
+        this.tiempoCarga = Timer.builder("usuario.carga")
+                .description("Tiempo de loadUserByUsername (consulta a usuarios)")
+                .register(registry);
     }
 
+    // Solo lectura: con réplica configurada se lee de ella
+    @Transactional(readOnly = true)
     public List<UsuarioRequest> listarUsuarios() {
         return usuarioRepository.findAll().stream()
                 .map(usuarioMapper::toDto) // Usar el mapper
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Optional<Usuario> buscarPorUsername(String username) {
         return usuarioRepository.findByUsername(username);
     }
 
+    // Transaccional: la entidad sigue gestionada y el UPDATE solo lleva "rol" (@DynamicUpdate), sin pisar secuenciaCambios
+    @Transactional
     public Optional<Usuario> promocionarAAdmin(Long id) {
         Optional<Usuario> usuarioOpt = usuarioRepository.findById(id);
         usuarioOpt.ifPresent(usuario -> {
             usuario.setRol("ADMIN");
             usuarioRepository.save(usuario);
+            marcasCambioRol.marcarCambio(usuario.getId()); // Los tokens anteriores dejan de valer para el rol
         });
         return usuarioOpt;
     }
 
+    @Transactional
     public boolean cambiarRol(Long id, String nuevoRol) {
         // Validar que el ID y el rol no sean null
         if (id == null || nuevoRol == null) {
@@ -57,13 +75,18 @@ public class UsuarioService implements UserDetailsService {
 
         usuario.setRol(nuevoRol.toUpperCase());
         usuarioRepository.save(usuario);
+        marcasCambioRol.marcarCambio(usuario.getId());
         return true;
     }
 
+    // Se llama en cada petición autenticada: solo lectura (con la caché de segundo nivel no toca la BD), pero
+    // siempre del primario aunque haya réplica (un registro recién hecho puede no haber llegado aún a ella)
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // Busca en la base de datos por nombre de usuario
-        Usuario usuario = usuarioRepository.findByUsername(username)
+        Usuario usuario = tiempoCarga.record(() -> EnrutadorDataSource.enPrimario(
+                        () -> usuarioRepository.findByUsername(username)))
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
         return org.springframework.security.core.userdetails.User.builder()
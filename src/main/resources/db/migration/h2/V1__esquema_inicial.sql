@@ -0,0 +1,23 @@
+-- Esquema inicial: el que generaba Hibernate (ddl-auto) antes de Flyway. tareas.version y tareas_seq se
+-- añadieron al modelo después y llegan en sus propias migraciones
+CREATE TABLE tareas (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    completada          BOOLEAN      NOT NULL,
+    descripcion         VARCHAR(255) NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion      TIMESTAMP(6),
+    titulo              VARCHAR(255) NOT NULL,
+    usuario_id          BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE usuarios (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    password VARCHAR(255),
+    rol      VARCHAR(255),
+    username VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE tareas
+    ADD CONSTRAINT FKdmoaxl7yv4q6vkc9h32wvbddr FOREIGN KEY (usuario_id) REFERENCES usuarios (id);
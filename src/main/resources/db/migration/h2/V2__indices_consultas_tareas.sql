@@ -0,0 +1,12 @@
+-- findByUsername se ejecuta en cada petición: índice único (y garantía de que no hay duplicados)
+ALTER TABLE usuarios ALTER COLUMN username SET NOT NULL;
+CREATE UNIQUE INDEX ux_usuarios_username ON usuarios (username);
+
+-- Listado filtrado por completada y ordenado por fecha (estado_*, fecha_*)
+CREATE INDEX ix_tareas_usuario_completada_fecha ON tareas (usuario_id, completada, fecha_creacion);
+
+-- Listado sin filtro ordenado por fecha (orden por defecto fecha_desc)
+CREATE INDEX ix_tareas_usuario_fecha ON tareas (usuario_id, fecha_creacion);
+
+-- Toda tarea tiene dueño (Tarea.usuario optional = false): así Spring Data usa INNER JOIN y el plan empieza por usuarios
+ALTER TABLE tareas ALTER COLUMN usuario_id SET NOT NULL;
@@ -0,0 +1,2 @@
+-- ETag de /api/tasks/list: COUNT(*) y MAX(fecha_actualizacion) por usuario se resuelven solo con el índice
+CREATE INDEX ix_tareas_usuario_actualizacion ON tareas (usuario_id, fecha_actualizacion);
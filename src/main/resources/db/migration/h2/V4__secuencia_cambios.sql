@@ -0,0 +1,18 @@
+-- Sincronización por deltas (/api/tasks/changes): contador de cambios por usuario, asignado con la fila del usuario
+-- bloqueada, así la secuencia sigue el orden de commit y una marca nunca salta un cambio aún sin confirmar
+ALTER TABLE usuarios ADD COLUMN secuencia_cambios BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE tareas ADD COLUMN secuencia_cambio BIGINT DEFAULT 0 NOT NULL;
+CREATE INDEX ix_tareas_usuario_secuencia ON tareas (usuario_id, secuencia_cambio);
+
+-- Lápidas de las tareas borradas; se compactan pasada la retención (cambios.retencion-horas)
+CREATE TABLE tareas_eliminadas (
+    tarea_id          BIGINT       NOT NULL,
+    usuario_id        BIGINT       NOT NULL,
+    secuencia_cambio  BIGINT       NOT NULL,
+    fecha_eliminacion TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (tarea_id),
+    CONSTRAINT fk_tareas_eliminadas_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+CREATE INDEX ix_tareas_eliminadas_usuario_secuencia ON tareas_eliminadas (usuario_id, secuencia_cambio);
+CREATE INDEX ix_tareas_eliminadas_fecha ON tareas_eliminadas (fecha_eliminacion);
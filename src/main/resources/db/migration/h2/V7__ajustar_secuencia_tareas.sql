@@ -0,0 +1,13 @@
+-- Los ids de tareas pasan de IDENTITY a tareas_seq, para poder mandar los INSERT en lotes JDBC. Las tareas creadas
+-- con IDENTITY no pasaron por la secuencia: se coloca por encima del mayor id existente (+ allocationSize) para que
+-- el primer bloque "pooled" no repita ids. Solo sube, nunca baja
+ALTER TABLE tareas ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE IF NOT EXISTS tareas_seq START WITH 1 INCREMENT BY 50;
+
+ALTER SEQUENCE tareas_seq RESTART WITH (
+    SELECT GREATEST(
+        (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TAREAS_SEQ'),
+        (SELECT COALESCE(MAX(id), 0) + 50 FROM tareas),
+        (SELECT COALESCE(MAX(id), 0) + 50 FROM tareas_archivo)
+    )
+);
@@ -0,0 +1,24 @@
+-- Esquema inicial: el que generaba Hibernate (ddl-auto=update) antes de Flyway, con los mismos nombres.
+-- Las BD creadas antes de Flyway ya lo tienen: se marcan como versión 1 (spring.flyway.baseline-version=1) y
+-- siguen desde V2. Lo que se añadió al modelo después (tareas.version, tareas_seq) llega en sus propias migraciones
+CREATE TABLE tareas (
+    completada          BIT          NOT NULL,
+    fecha_actualizacion DATETIME(6),
+    fecha_creacion      DATETIME(6),
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    usuario_id          BIGINT,
+    descripcion         VARCHAR(255) NOT NULL,
+    titulo              VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE usuarios (
+    id       BIGINT NOT NULL AUTO_INCREMENT,
+    password VARCHAR(255),
+    rol      VARCHAR(255),
+    username VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+ALTER TABLE tareas
+    ADD CONSTRAINT FKdmoaxl7yv4q6vkc9h32wvbddr FOREIGN KEY (usuario_id) REFERENCES usuarios (id);
@@ -0,0 +1,12 @@
+-- findByUsername se ejecuta en cada petición: índice único (falla si ya hay usernames duplicados; hay que limpiarlos antes)
+ALTER TABLE usuarios MODIFY username VARCHAR(255) NOT NULL;
+CREATE UNIQUE INDEX ux_usuarios_username ON usuarios (username);
+
+-- Listado filtrado por completada y ordenado por fecha (InnoDB añade el id al final de cada índice secundario)
+CREATE INDEX ix_tareas_usuario_completada_fecha ON tareas (usuario_id, completada, fecha_creacion);
+
+-- Listado sin filtro ordenado por fecha (orden por defecto fecha_desc)
+CREATE INDEX ix_tareas_usuario_fecha ON tareas (usuario_id, fecha_creacion);
+
+-- Toda tarea tiene dueño (Tarea.usuario optional = false): así Spring Data usa INNER JOIN y el plan empieza por usuarios
+ALTER TABLE tareas MODIFY usuario_id BIGINT NOT NULL;
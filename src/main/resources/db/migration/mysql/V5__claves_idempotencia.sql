@@ -0,0 +1,12 @@
+-- Respuestas guardadas por Idempotency-Key (solo con idempotencia.persistente=true). El id es el SHA-256 de
+-- usuario + clave; estado NULL = petición aún en curso (reserva que caduca a los idempotencia.reserva-segundos)
+CREATE TABLE claves_idempotencia (
+    id               VARCHAR(64)  NOT NULL,
+    huella           VARCHAR(64)  NOT NULL,
+    estado           INT,
+    tipo_contenido   VARCHAR(255),
+    cuerpo           MEDIUMBLOB,
+    fecha_expiracion DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+CREATE INDEX ix_claves_idempotencia_expiracion ON claves_idempotencia (fecha_expiracion);
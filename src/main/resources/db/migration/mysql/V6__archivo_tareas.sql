@@ -0,0 +1,20 @@
+-- Archivo en frío: tareas completadas sin cambios desde hace archivado.edad-dias. Solo se leen con
+-- /api/tasks/list?incluirArchivadas=true; el id se conserva (los ids no se reutilizan)
+CREATE TABLE tareas_archivo (
+    id                  BIGINT       NOT NULL,
+    titulo              VARCHAR(255) NOT NULL,
+    descripcion         VARCHAR(255) NOT NULL,
+    completada          BIT          NOT NULL,
+    fecha_creacion      DATETIME(6),
+    fecha_actualizacion DATETIME(6),
+    version             BIGINT       NOT NULL,
+    usuario_id          BIGINT       NOT NULL,
+    secuencia_cambio    BIGINT       NOT NULL,
+    fecha_archivado     DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_tareas_archivo_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
+CREATE INDEX ix_tareas_archivo_usuario_fecha ON tareas_archivo (usuario_id, fecha_creacion);
+
+-- El archivador recorre las candidatas en orden (fecha_actualizacion, id) sin pasar por el resto de la tabla
+CREATE INDEX ix_tareas_completada_actualizacion ON tareas (completada, fecha_actualizacion, id);
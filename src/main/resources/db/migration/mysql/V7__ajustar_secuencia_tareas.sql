@@ -0,0 +1,15 @@
+-- Los ids de tareas pasan de AUTO_INCREMENT a tareas_seq (Hibernate la emula con una tabla de una fila), para
+-- poder mandar los INSERT en lotes JDBC. La secuencia se coloca por encima del mayor id existente (+ allocationSize)
+-- para que el primer bloque "pooled" no repita ids. Solo sube, nunca baja (una BD puede tenerla ya, creada por ddl-auto)
+ALTER TABLE tareas MODIFY id BIGINT NOT NULL;
+
+CREATE TABLE IF NOT EXISTS tareas_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+INSERT INTO tareas_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM tareas_seq);
+
+UPDATE tareas_seq SET next_val = GREATEST(
+    next_val,
+    (SELECT COALESCE(MAX(id), 0) + 50 FROM tareas),
+    (SELECT COALESCE(MAX(id), 0) + 50 FROM tareas_archivo)
+);
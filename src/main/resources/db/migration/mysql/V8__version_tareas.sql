@@ -0,0 +1,2 @@
+-- Bloqueo optimista de Tarea (@Version): las tareas que ya existían empiezan en la versión 0
+ALTER TABLE tareas ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,84 @@
+package com.hotguy.tareas;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricasTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void lasMetricasExistenYSeMuevenConCarga() throws Exception {
+        String token = token("/api/auth/register", "metricas", "metricas123");
+
+        double verificacionesAntes = cuenta("jwt.verificacion");
+        double sentenciasAntes = registry.get("hibernate.statements").tag("status", "prepared").functionCounter().count();
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/tasks/create")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"titulo\":\"Tarea " + i + "\",\"descripcion\":\"Para las métricas\"}"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(verificacionesAntes + 10, cuenta("jwt.verificacion"));
+        assertTrue(cuenta("usuario.carga") >= 10);
+        assertTrue(registry.get("hibernate.statements").tag("status", "prepared").functionCounter().count() > sentenciasAntes);
+        assertTrue(registry.get("http.server.requests").tag("uri", "/api/tasks/list").timer().count() >= 5);
+        assertTrue(registry.get("hikaricp.connections.acquire").timer().count() > 0);
+        registry.get("hikaricp.connections.active").gauge();
+        registry.get("hash.latencia").timer();
+
+        // El endpoint Prometheus funciona sin servicios externos (solo ADMIN)
+        String admin = token("/api/auth/login", "admin", "admin123");
+        String prometheus = mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + admin))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(prometheus.contains("jwt_verificacion_seconds_count"));
+        assertTrue(prometheus.contains("hikaricp_connections_pending"));
+
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    private double cuenta(String timer) {
+        return registry.get(timer).timers().stream().mapToDouble(t -> t.count()).sum();
+    }
+
+    private String token(String ruta, String username, String password) throws Exception {
+        String respuesta = mockMvc.perform(post(ruta)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta).get("token").asText();
+    }
+}
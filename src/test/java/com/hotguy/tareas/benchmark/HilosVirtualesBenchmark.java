@@ -0,0 +1,173 @@
+package com.hotguy.tareas.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.TareasApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compara hilos de plataforma y virtuales (perfil "virtual") sobre H2: throughput y p99 de list y create a concurrencia creciente.
+// Ejecutar: ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.hotguy.tareas.benchmark.HilosVirtualesBenchmark -Dbenchmark.args=
+public class HilosVirtualesBenchmark {
+
+    private static final int[] CONCURRENCIAS = {8, 32, 128, 512};
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(3);
+    private static final Duration MEDICION = Duration.ofSeconds(Integer.getInteger("benchmark.segundos", 10));
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper json = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false"); // El reinicio de DevTools no pinta nada midiendo
+        HilosVirtualesBenchmark benchmark = new HilosVirtualesBenchmark();
+        System.out.printf("%-10s %-8s %6s %12s %10s %10s %8s%n", "modo", "ruta", "hilos", "peticiones/s", "p50 ms", "p99 ms", "errores");
+        benchmark.medirModo("plataforma", "dev");
+        benchmark.medirModo("virtual", "dev,virtual");
+    }
+
+    private void medirModo(String modo, String perfiles) throws Exception {
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(TareasApplication.class)
+                .profiles(perfiles.split(","))
+                .run( // Como argumentos para que ganen a application-dev.properties (show-sql y logs DEBUG falsean la medida)
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:bench_" + modo,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--hash.bcrypt-coste=4",
+                        "--limite-tasa.habilitado=false" // Todo sale de una IP: con el límite se medirían 429
+                );
+        try {
+            String base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api";
+            String token = registrar(base, "bench_" + modo);
+            for (int i = 0; i < 200; i++) {
+                crear(base, token, i); // Datos para que el listado no esté vacío
+            }
+
+            for (int hilos : CONCURRENCIAS) {
+                imprimir(modo, "list", hilos, medir(hilos, n -> listar(base, token)));
+                imprimir(modo, "create", hilos, medir(hilos, n -> crear(base, token, n)));
+            }
+        } finally {
+            app.close();
+        }
+    }
+
+    // Bucle cerrado: cada cliente virtual lanza una petición tras otra hasta que se acaba el tiempo
+    private Resultado medir(int hilos, Peticion peticion) throws Exception {
+        ejecutarDurante(hilos, CALENTAMIENTO, peticion);
+        return ejecutarDurante(hilos, MEDICION, peticion);
+    }
+
+    private Resultado ejecutarDurante(int hilos, Duration duracion, Peticion peticion) throws Exception {
+        long fin = System.nanoTime() + duracion.toNanos();
+        AtomicLong errores = new AtomicLong();
+        AtomicLong secuencia = new AtomicLong();
+
+        List<Future<long[]>> futuros = new ArrayList<>();
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int h = 0; h < hilos; h++) {
+                futuros.add(clientes.submit(() -> {
+                    long[] latencias = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < fin) {
+                        long inicio = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = peticion.enviar(secuencia.incrementAndGet());
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long latencia = System.nanoTime() - inicio;
+                        if (!ok) {
+                            errores.incrementAndGet();
+                            continue;
+                        }
+                        if (n == latencias.length) latencias = Arrays.copyOf(latencias, n * 2);
+                        latencias[n++] = latencia;
+                    }
+                    return Arrays.copyOf(latencias, n);
+                }));
+            }
+
+            List<long[]> partes = new ArrayList<>();
+            for (Future<long[]> futuro : futuros) {
+                partes.add(futuro.get());
+            }
+            long[] todas = partes.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Resultado(todas, errores.get(), duracion);
+        }
+    }
+
+    private boolean listar(String base, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/tasks/list?limit=50"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    private boolean crear(String base, String token, long n) throws Exception {
+        String cuerpo = json.writeValueAsString(new TareaBench("Tarea " + n, "Creada por el benchmark"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/tasks/create"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    private String registrar(String base, String username) throws Exception {
+        String cuerpo = json.writeValueAsString(new UsuarioBench(username, "benchmark123"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+        String respuesta = http.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        return json.readTree(respuesta).get("token").asText();
+    }
+
+    private static void imprimir(String modo, String ruta, int hilos, Resultado r) {
+        System.out.printf("%-10s %-8s %6d %12.0f %10.2f %10.2f %8d%n",
+                modo, ruta, hilos, r.porSegundo(), r.percentilMs(0.50), r.percentilMs(0.99), r.errores());
+    }
+
+    @FunctionalInterface
+    private interface Peticion {
+        boolean enviar(long n) throws Exception;
+    }
+
+    private record TareaBench(String titulo, String descripcion) {
+    }
+
+    private record UsuarioBench(String username, String password) {
+    }
+
+    private record Resultado(long[] latenciasOrdenadas, long errores, Duration duracion) {
+
+        double porSegundo() {
+            return latenciasOrdenadas.length / (duracion.toMillis() / 1000.0);
+        }
+
+        double percentilMs(double p) {
+            if (latenciasOrdenadas.length == 0) return 0;
+            int i = (int) Math.min(latenciasOrdenadas.length - 1, Math.ceil(p * latenciasOrdenadas.length) - 1);
+            return latenciasOrdenadas[Math.max(0, i)] / 1_000_000.0;
+        }
+    }
+}
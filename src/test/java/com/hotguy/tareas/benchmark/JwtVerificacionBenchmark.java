@@ -0,0 +1,67 @@
+package com.hotguy.tareas.benchmark;
+
+import com.hotguy.tareas.security.JwtProperties;
+import com.hotguy.tareas.security.JwtUtil;
+import com.hotguy.tareas.security.TokenVerificado;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Coste por petición de verificar el JWT: como antes (3 parseos), 1 parseo, y acierto en caché
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificacionBenchmark {
+
+    private JwtUtil sinCache;
+    private JwtUtil conCache;
+    private String token;
+
+    @Setup
+    public void setup() {
+        sinCache = new JwtUtil(propiedades(0));
+        conCache = new JwtUtil(propiedades(10_000));
+        token = sinCache.generarToken("benchmark");
+        conCache.verificar(token); // Calienta la caché
+    }
+
+    // Lo que hacía JwtFilter antes: extraerUsername + validarToken (extraerUsername + estaExpirado)
+    @Benchmark
+    public boolean tresParseos() {
+        String username = sinCache.extraerUsername(token);
+        return sinCache.validarToken(token, username) && sinCache.verificar(token).isPresent();
+    }
+
+    @Benchmark
+    public Optional<TokenVerificado> unParseo() {
+        return sinCache.verificar(token);
+    }
+
+    @Benchmark
+    public Optional<TokenVerificado> aciertoEnCache() {
+        return conCache.verificar(token);
+    }
+
+    private static JwtProperties propiedades(int cacheSize) {
+        JwtProperties props = new JwtProperties();
+        props.setSecret("clave_secreta_super_segura_1234567890123456");
+        props.setExpiration(36_000_000);
+        props.setCacheSize(cacheSize);
+        return props;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(JwtVerificacionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opciones).run();
+    }
+}
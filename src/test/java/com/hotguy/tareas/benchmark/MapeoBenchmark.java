@@ -0,0 +1,88 @@
+package com.hotguy.tareas.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.dto.UsuarioRequest;
+import com.hotguy.tareas.mapper.UsuarioMapper;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.service.TareaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coste de mapear y serializar: UsuarioMapper.toDto sobre listas grandes, "orden" → Sort y Jackson sobre listas de tareas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeoBenchmark {
+
+    @Param({"1000", "10000"})
+    public int tamano;
+
+    private final UsuarioMapper usuarioMapper = new UsuarioMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules(); // JavaTimeModule para LocalDateTime
+
+    private List<Usuario> usuarios;
+    private List<Tarea> tareas;
+    private List<TareaView> vistas;
+
+    @Setup
+    public void setup() {
+        usuarios = new ArrayList<>(tamano);
+        tareas = new ArrayList<>(tamano);
+        vistas = new ArrayList<>(tamano);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        for (int i = 0; i < tamano; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setId((long) i);
+            usuario.setUsername("usuario" + i);
+            usuario.setPassword("$2a$10$hash");
+            usuario.setRol(i % 10 == 0 ? "ADMIN" : "USER");
+            usuarios.add(usuario);
+
+            Tarea tarea = new Tarea("Tarea " + i, "Descripción de la tarea " + i);
+            tarea.setCompletada(i % 3 == 0);
+            tareas.add(tarea);
+
+            vistas.add(new TareaView((long) i, "Tarea " + i, "Descripción de la tarea " + i, i % 3 == 0, ahora, ahora, 0));
+        }
+    }
+
+    @Benchmark
+    public List<UsuarioRequest> usuariosToDto() {
+        List<UsuarioRequest> dtos = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios) {
+            dtos.add(usuarioMapper.toDto(usuario));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public Sort parsearOrdenSimple() {
+        return TareaService.parsearOrden("fecha_desc");
+    }
+
+    @Benchmark
+    public Sort parsearOrdenCompuesto() {
+        return TareaService.parsearOrden("estado_asc,fecha_desc");
+    }
+
+    @Benchmark
+    public byte[] serializarTareas() throws Exception {
+        return objectMapper.writeValueAsBytes(tareas);
+    }
+
+    @Benchmark
+    public byte[] serializarTareaViews() throws Exception {
+        return objectMapper.writeValueAsBytes(vistas);
+    }
+}
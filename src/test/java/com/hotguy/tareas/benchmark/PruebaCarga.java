@@ -0,0 +1,309 @@
+package com.hotguy.tareas.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.TareasApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Prueba de carga de modelo abierto: arranca la app con H2, registra N usuarios y lanza peticiones a ritmo fijo
+// (no espera a que terminen las anteriores), midiendo desde el instante previsto para no ocultar colas.
+//
+// ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.hotguy.tareas.benchmark.PruebaCarga -Dbenchmark.args= \
+//     -Dbenchmark.jvmArgs="-Dcarga.rps=300 -Dcarga.segundos=60 -Dcarga.baseline=target/carga/baseline.properties"
+//
+// Propiedades (-D): carga.usuarios, carga.rps, carga.segundos, carga.calentamiento, carga.perfiles,
+// carga.mezcla ("login:5,create:20,list:50,toggle:15,edit:10"), carga.bcrypt, carga.salida, carga.baseline
+public class PruebaCarga {
+
+    private static final long MAX_LATENCIA_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final int usuarios = Integer.getInteger("carga.usuarios", 50);
+    private final int rps = Integer.getInteger("carga.rps", 200);
+    private final int segundos = Integer.getInteger("carga.segundos", 30);
+    private final int calentamiento = Integer.getInteger("carga.calentamiento", 5);
+    private final String perfiles = System.getProperty("carga.perfiles", "dev");
+    private final String mezcla = System.getProperty("carga.mezcla", "login:5,create:20,list:50,toggle:15,edit:10");
+    private final String bcrypt = System.getProperty("carga.bcrypt", "10");
+    private final Path salida = Path.of(System.getProperty("carga.salida", "target/carga/informe.properties"));
+    private final String baseline = System.getProperty("carga.baseline");
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper json = new ObjectMapper();
+
+    private final Map<String, Integer> pesos = new LinkedHashMap<>();
+    private final Map<String, Histogram> histogramas = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errores = new LinkedHashMap<>();
+    private final List<Cliente> clientes = new ArrayList<>();
+    private String base;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false"); // El reinicio de DevTools no pinta nada midiendo
+        new PruebaCarga().ejecutar();
+    }
+
+    private void ejecutar() throws Exception {
+        for (String parte : mezcla.split(",")) {
+            String[] kv = parte.split(":");
+            pesos.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(TareasApplication.class)
+                .profiles(perfiles.split(","))
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:carga",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--hash.bcrypt-coste=" + bcrypt,
+                        "--limite-tasa.habilitado=false" // Todo sale de una IP: con el límite se medirían 429
+                );
+        try {
+            base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api";
+            prepararUsuarios();
+
+            System.out.printf("Calentando %ds a %d peticiones/s...%n", calentamiento, rps);
+            lanzar(calentamiento);
+            reiniciarMedidas();
+
+            System.out.printf("Midiendo %ds a %d peticiones/s (%d usuarios, mezcla %s)...%n", segundos, rps, usuarios, mezcla);
+            lanzar(segundos);
+
+            Properties informe = informe();
+            imprimir(informe);
+            guardar(informe);
+        } finally {
+            app.close();
+        }
+    }
+
+    // Cada usuario se registra y crea unas tareas para que toggle/edit tengan sobre qué trabajar
+    private void prepararUsuarios() throws Exception {
+        for (int i = 0; i < usuarios; i++) {
+            Cliente cliente = new Cliente("carga" + i, "carga_password_" + i);
+            HttpResponse<String> r = enviar(post("/auth/register", null, Map.of("username", cliente.username, "password", cliente.password)));
+            cliente.token = json.readTree(r.body()).get("token").asText();
+            for (int t = 0; t < 5; t++) {
+                crear(cliente);
+            }
+            clientes.add(cliente);
+        }
+        reiniciarMedidas();
+    }
+
+    // Planificador de modelo abierto: la i-ésima petición sale en inicio + i/rps, vaya como vaya el servidor
+    private void lanzar(int duracionSegundos) throws InterruptedException {
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / rps;
+        long inicio = System.nanoTime();
+        long total = (long) rps * duracionSegundos;
+        int pesoTotal = pesos.values().stream().mapToInt(Integer::intValue).sum();
+
+        try (ExecutorService peticiones = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long previsto = inicio + i * intervalo;
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) LockSupport.parkNanos(espera);
+
+                String operacion = elegir(pesoTotal);
+                Cliente cliente = clientes.get(ThreadLocalRandom.current().nextInt(clientes.size()));
+                peticiones.submit(() -> medir(operacion, cliente, previsto));
+            }
+        } // close() espera a las peticiones en vuelo
+    }
+
+    private void medir(String operacion, Cliente cliente, long previsto) {
+        boolean ok;
+        try {
+            ok = switch (operacion) {
+                case "login" -> login(cliente);
+                case "create" -> crear(cliente);
+                case "list" -> listar(cliente);
+                case "toggle" -> alternar(cliente);
+                case "edit" -> editar(cliente);
+                default -> throw new IllegalArgumentException("Operación desconocida: " + operacion);
+            };
+        } catch (Exception e) {
+            ok = false;
+        }
+        long micros = Math.min(MAX_LATENCIA_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - previsto));
+        histogramas.get(operacion).recordValue(Math.max(1, micros));
+        if (!ok) errores.get(operacion).incrementAndGet();
+    }
+
+    private boolean login(Cliente c) throws Exception {
+        HttpResponse<String> r = enviar(post("/auth/login", null, Map.of("username", c.username, "password", c.password)));
+        if (r.statusCode() != 200) return false;
+        c.token = json.readTree(r.body()).get("token").asText();
+        return true;
+    }
+
+    private boolean crear(Cliente c) throws Exception {
+        HttpResponse<String> r = enviar(post("/tasks/create", c.token, Map.of("titulo", "Tarea de carga", "descripcion", "Creada por PruebaCarga")));
+        if (r.statusCode() != 200) return false;
+        c.tareas.add(json.readTree(r.body()).get("id").asLong());
+        return true;
+    }
+
+    private boolean listar(Cliente c) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/tasks/list?orden=estado_asc,fecha_desc"))
+                .header("Authorization", "Bearer " + c.token)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    private boolean alternar(Cliente c) throws Exception {
+        Long id = c.tareaAlAzar();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/tasks/" + id + "/toggleComplete"))
+                .header("Authorization", "Bearer " + c.token)
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    private boolean editar(Cliente c) throws Exception {
+        Long id = c.tareaAlAzar();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/tasks/" + id))
+                .header("Authorization", "Bearer " + c.token)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json.writeValueAsString(Map.of("descripcion", "Editada por PruebaCarga"))))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    private HttpRequest post(String ruta, String token, Map<String, String> cuerpo) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + ruta))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.writeValueAsString(cuerpo)));
+        if (token != null) builder.header("Authorization", "Bearer " + token);
+        return builder.build();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String elegir(int pesoTotal) {
+        int tirada = ThreadLocalRandom.current().nextInt(pesoTotal);
+        for (Map.Entry<String, Integer> peso : pesos.entrySet()) {
+            tirada -= peso.getValue();
+            if (tirada < 0) return peso.getKey();
+        }
+        throw new IllegalStateException("Mezcla vacía");
+    }
+
+    private void reiniciarMedidas() {
+        for (String operacion : pesos.keySet()) {
+            histogramas.put(operacion, new ConcurrentHistogram(MAX_LATENCIA_MICROS, 3));
+            errores.put(operacion, new AtomicLong());
+        }
+    }
+
+    private Properties informe() {
+        Properties informe = new Properties();
+        for (String operacion : pesos.keySet()) {
+            Histogram h = histogramas.get(operacion);
+            long total = h.getTotalCount();
+            informe.setProperty(operacion + ".peticiones", String.valueOf(total));
+            informe.setProperty(operacion + ".errores.pct", String.format(Locale.ROOT, "%.2f", total == 0 ? 0 : 100.0 * errores.get(operacion).get() / total));
+            informe.setProperty(operacion + ".p50.ms", ms(h.getValueAtPercentile(50)));
+            informe.setProperty(operacion + ".p90.ms", ms(h.getValueAtPercentile(90)));
+            informe.setProperty(operacion + ".p99.ms", ms(h.getValueAtPercentile(99)));
+            informe.setProperty(operacion + ".p999.ms", ms(h.getValueAtPercentile(99.9)));
+            informe.setProperty(operacion + ".max.ms", ms(h.getMaxValue()));
+        }
+        return informe;
+    }
+
+    private void imprimir(Properties informe) throws IOException {
+        Properties anterior = new Properties();
+        if (baseline != null && Files.exists(Path.of(baseline))) {
+            try (Reader reader = Files.newBufferedReader(Path.of(baseline))) {
+                anterior.load(reader);
+            }
+        }
+
+        System.out.printf("%n%-8s %10s %9s %9s %9s %9s %9s %9s %12s%n",
+                "ruta", "peticiones", "error %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "p99 vs base");
+        for (String operacion : pesos.keySet()) {
+            String p99 = informe.getProperty(operacion + ".p99.ms");
+            String base99 = anterior.getProperty(operacion + ".p99.ms");
+            String comparacion = base99 == null ? "-" : String.format(Locale.ROOT, "%+.1f%%", 100.0 * (Double.parseDouble(p99) / Double.parseDouble(base99) - 1));
+            System.out.printf("%-8s %10s %9s %9s %9s %9s %9s %9s %12s%n", operacion,
+                    informe.getProperty(operacion + ".peticiones"),
+                    informe.getProperty(operacion + ".errores.pct"),
+                    informe.getProperty(operacion + ".p50.ms"),
+                    informe.getProperty(operacion + ".p90.ms"),
+                    p99,
+                    informe.getProperty(operacion + ".p999.ms"),
+                    informe.getProperty(operacion + ".max.ms"),
+                    comparacion);
+        }
+        System.out.println();
+        histogramas.forEach((operacion, h) -> {
+            System.out.println("== Distribución " + operacion + " (ms)");
+            h.outputPercentileDistribution(System.out, 5, 1000.0);
+        });
+    }
+
+    // El informe guardado sirve como baseline de la siguiente versión (-Dcarga.baseline=...)
+    private void guardar(Properties informe) throws IOException {
+        Files.createDirectories(salida.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(salida)) {
+            informe.store(writer, "PruebaCarga rps=" + rps + " segundos=" + segundos + " usuarios=" + usuarios + " mezcla=" + mezcla);
+        }
+        System.out.println("Informe guardado en " + salida.toAbsolutePath());
+    }
+
+    private static String ms(long micros) {
+        return String.format(Locale.ROOT, "%.2f", micros / 1000.0);
+    }
+
+    private static class Cliente {
+        private final String username;
+        private final String password;
+        private final List<Long> tareas = Collections.synchronizedList(new ArrayList<>());
+        private volatile String token;
+
+        Cliente(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        Long tareaAlAzar() {
+            synchronized (tareas) {
+                return tareas.get(ThreadLocalRandom.current().nextInt(tareas.size()));
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.hotguy.tareas.benchmark;
+
+import com.hotguy.tareas.security.JwtFilter;
+import com.hotguy.tareas.security.JwtProperties;
+import com.hotguy.tareas.security.JwtUtil;
+import com.hotguy.tareas.security.MarcasCambioRol;
+import com.hotguy.tareas.service.UsuarioService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+// Coste por petición de la parte de seguridad: emitir/validar JWT, leer la cabecera y el filtro completo (UsuarioService sin BD)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeguridadBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheTokens;
+
+    private JwtUtil jwtUtil;
+    private JwtFilter filtro;
+    private String token;
+    private MockHttpServletRequest requestConToken;
+
+    @Setup
+    public void setup() {
+        JwtProperties props = new JwtProperties();
+        props.setSecret("clave_secreta_super_segura_1234567890123456");
+        props.setExpiration(36_000_000);
+        props.setCacheSize(cacheTokens ? 10_000 : 0);
+
+        jwtUtil = new JwtUtil(props);
+        filtro = new JwtFilter(jwtUtil, new UsuarioServiceStub(), props, new MarcasCambioRol(props), new SimpleMeterRegistry());
+        token = jwtUtil.generarToken("benchmark");
+
+        requestConToken = new MockHttpServletRequest("GET", "/api/tasks/list");
+        requestConToken.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public String generarToken() {
+        return jwtUtil.generarToken("benchmark");
+    }
+
+    @Benchmark
+    public boolean validarToken() {
+        return jwtUtil.validarToken(token, "benchmark");
+    }
+
+    @Benchmark
+    public String obtenerToken() {
+        return JwtFilter.obtenerToken(requestConToken);
+    }
+
+    // Cabecera → verificación → UserDetails → SecurityContext, como en cada petición autenticada
+    @Benchmark
+    public Object filtroCompleto() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks/list");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Sustituye a la BD: siempre devuelve el mismo usuario
+    private static class UsuarioServiceStub extends UsuarioService {
+
+        private final UserDetails usuario = User.withUsername("benchmark").password("x").roles("USER").build();
+
+        UsuarioServiceStub() {
+            super(null, null, null, new SimpleMeterRegistry());
+        }
+
+        @Override
+        public UserDetails loadUserByUsername(String username) {
+            return usuario;
+        }
+    }
+}
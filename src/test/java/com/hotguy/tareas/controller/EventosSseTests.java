@@ -0,0 +1,172 @@
+package com.hotguy.tareas.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.security.JwtUtil;
+import com.hotguy.tareas.service.CanalEventos;
+import com.hotguy.tareas.service.TareaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EventosSseTests {
+
+    private static final int SUSCRIPTORES = 200;
+    private static final int EVENTOS = 20;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CanalEventos canalEventos;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void muchosSuscriptoresRecibenCadaEventoTrasElCommit() throws Exception {
+        Usuario usuario = new Usuario();
+        usuario.setUsername("suscrito");
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        usuarioRepository.save(usuario);
+        Tarea tarea = new Tarea("Tarea en vivo", "Se alterna muchas veces");
+        tarea.setUsuario(usuario);
+        Long id = tareaRepository.save(tarea).getId();
+
+        try (HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            medirLatencias(cliente, id);
+            cliente.shutdownNow(); // Corta las conexiones SSE abiertas
+        }
+    }
+
+    private void medirLatencias(HttpClient cliente, Long id) throws Exception {
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/tasks/events"))
+                .header("Authorization", "Bearer " + jwtUtil.generarToken("suscrito"))
+                .header("Accept", "text/event-stream")
+                .build();
+
+        // Cada suscriptor anota cuándo le llega cada secuencia; ninguno ocupa un hilo mientras espera
+        CountDownLatch conectados = new CountDownLatch(SUSCRIPTORES);
+        CountDownLatch completos = new CountDownLatch(SUSCRIPTORES);
+        List<Map<Long, Long>> llegadas = new ArrayList<>();
+        for (int i = 0; i < SUSCRIPTORES; i++) {
+            Map<Long, Long> recibidos = new ConcurrentHashMap<>();
+            llegadas.add(recibidos);
+            cliente.sendAsync(peticion, HttpResponse.BodyHandlers.fromLineSubscriber(
+                    new Lector(recibidos, conectados, completos)));
+        }
+        assertTrue(conectados.await(30, TimeUnit.SECONDS), "No se conectaron todos los suscriptores");
+        assertEquals(SUSCRIPTORES, canalEventos.conexiones());
+
+        // Un cambio que falla (tarea ajena o inexistente) hace rollback y no publica nada
+        assertThrows(ResponseStatusException.class, () -> tareaService.toggleCompletada(-1L, "suscrito"));
+
+        Map<Long, Long> enviados = new ConcurrentHashMap<>();
+        for (int i = 0; i < EVENTOS; i++) {
+            long inicio = System.nanoTime();
+            long secuencia = secuenciaActual() + 1;
+            enviados.put(secuencia, inicio);
+            tareaService.toggleCompletada(id, "suscrito");
+        }
+        assertTrue(completos.await(30, TimeUnit.SECONDS), "Algún suscriptor no recibió todos los eventos");
+
+        long[] latencias = llegadas.stream()
+                .flatMap(m -> m.entrySet().stream())
+                .mapToLong(e -> e.getValue() - enviados.get(e.getKey()))
+                .sorted()
+                .toArray();
+        for (Map<Long, Long> recibidos : llegadas) {
+            assertEquals(enviados.keySet(), recibidos.keySet()); // Todos, sin huecos ni el del rollback
+        }
+        assertEquals(SUSCRIPTORES * EVENTOS, latencias.length);
+        assertTrue(percentil(latencias, 0.99) < 5_000, "Latencia p99 demasiado alta: " + Arrays.toString(latencias));
+    }
+
+    private long secuenciaActual() {
+        return usuarioRepository.obtenerSecuenciaCambios(usuarioRepository.findByUsername("suscrito").orElseThrow().getId());
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)] / 1e6;
+    }
+
+    private final class Lector implements Flow.Subscriber<String> {
+        private final Map<Long, Long> recibidos;
+        private final CountDownLatch conectados;
+        private final CountDownLatch completos;
+        private boolean conectado;
+
+        Lector(Map<Long, Long> recibidos, CountDownLatch conectados, CountDownLatch completos) {
+            this.recibidos = recibidos;
+            this.conectados = conectados;
+            this.completos = completos;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String linea) {
+            if (!conectado && linea.startsWith(":")) {
+                conectado = true;
+                conectados.countDown();
+            } else if (linea.startsWith("data:")) {
+                long ahora = System.nanoTime();
+                try {
+                    JsonNode evento = objectMapper.readTree(linea.substring("data:".length()));
+                    recibidos.put(evento.get("secuencia").asLong(), ahora);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                if (recibidos.size() == EVENTOS) completos.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
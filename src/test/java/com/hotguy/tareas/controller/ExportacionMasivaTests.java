@@ -0,0 +1,117 @@
+package com.hotguy.tareas.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.security.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Se ejecuta aparte, con el heap pequeño de la ejecución "exportacion-masiva" del pom: si la exportación
+// acumulara las tareas en memoria, un millón de filas no cabría. H2 en fichero para que los datos tampoco estén en el heap
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2-exportacion;LAZY_QUERY_EXECUTION=TRUE",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=warn"
+})
+class ExportacionMasivaTests {
+
+    private static final int TAREAS = 1_000_000;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // La base de la ejecución anterior (cientos de MB) se borra antes de que arranque el contexto
+    @BeforeAll
+    static void borrarBaseAnterior() throws Exception {
+        Files.deleteIfExists(Path.of("target", "h2-exportacion.mv.db"));
+        Files.deleteIfExists(Path.of("target", "h2-exportacion.trace.db"));
+    }
+
+    @Test
+    void unMillonDeTareasSeExportaConElHeapPequeno() throws Exception {
+        // Con -Dtest también la recoge la ejecución normal (heap grande): ahí no demostraría nada
+        assumeTrue(Runtime.getRuntime().maxMemory() <= 256L * 1024 * 1024, "Solo con el -Xmx pequeño de su ejecución");
+
+        Usuario usuario = new Usuario();
+        usuario.setUsername("exportador");
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        usuario = usuarioRepository.save(usuario);
+        jdbcTemplate.update("""
+                INSERT INTO tareas (id, titulo, descripcion, completada, fecha_creacion, fecha_actualizacion, version, usuario_id, secuencia_cambio)
+                SELECT 10000000 + X, 'Tarea ' || X, 'Descripción de la tarea ' || X, MOD(X, 2) = 0,
+                       CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0, ?, 0
+                FROM SYSTEM_RANGE(1, ?)
+                """, usuario.getId(), TAREAS);
+        String token = jwtUtil.generarToken(usuario);
+
+        try (HttpClient cliente = HttpClient.newHttpClient()) {
+            HttpResponse<InputStream> plana = cliente.send(peticion(token).build(), HttpResponse.BodyHandlers.ofInputStream());
+            assertEquals(200, plana.statusCode());
+            assertEquals(TAREAS, contarLineas(plana.body()));
+
+            HttpResponse<InputStream> comprimida = cliente.send(peticion(token).header("Accept-Encoding", "gzip").build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            assertEquals(200, comprimida.statusCode());
+            assertEquals("gzip", comprimida.headers().firstValue("Content-Encoding").orElse(null));
+            assertEquals(TAREAS, contarLineas(new GZIPInputStream(comprimida.body())));
+        }
+    }
+
+    private HttpRequest.Builder peticion(String token) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/tasks/export"))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    // Cuenta las líneas sin guardarlas y comprueba que la primera y la última son tareas en orden de id
+    private long contarLineas(InputStream cuerpo) throws Exception {
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(cuerpo, StandardCharsets.UTF_8))) {
+            long lineas = 0;
+            String linea;
+            String ultima = null;
+            while ((linea = lector.readLine()) != null) {
+                if (lineas == 0) {
+                    assertEquals(10000001L, objectMapper.readTree(linea).get("id").asLong());
+                }
+                ultima = linea;
+                lineas++;
+            }
+            JsonNode tarea = objectMapper.readTree(ultima);
+            assertEquals(10000000L + TAREAS, tarea.get("id").asLong());
+            return lineas;
+        }
+    }
+}
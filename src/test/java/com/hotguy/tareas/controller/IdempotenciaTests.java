@@ -0,0 +1,150 @@
+package com.hotguy.tareas.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.config.IdempotenciaProperties;
+import com.hotguy.tareas.repository.ClaveIdempotenciaRepository;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.service.AlmacenIdempotencia;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "idempotencia.persistente=true")
+@AutoConfigureMockMvc
+class IdempotenciaTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Autowired
+    private IdempotenciaProperties properties;
+
+    @Test
+    void elReintentoRepiteLaRespuestaSinCrearOtraTarea() throws Exception {
+        String token = token("reintentos");
+
+        MvcResult primera = crear(token, "clave-1", "Solo una").andExpect(status().isOk()).andReturn();
+        MvcResult repetida = crear(token, "clave-1", "Solo una")
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn();
+        assertEquals(primera.getResponse().getContentAsString(), repetida.getResponse().getContentAsString());
+        assertEquals(1, tareas("reintentos"));
+
+        // Misma clave con otra petición: 422. Otro usuario con la misma clave: ámbito distinto, se ejecuta
+        crear(token, "clave-1", "Otra distinta").andExpect(status().isUnprocessableEntity());
+        crear(token("otroreintento"), "clave-1", "Solo una")
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        // Alternar es la operación que más daño hace al repetirse: la segunda no puede deshacer la primera
+        long id = objectMapper.readTree(primera.getResponse().getContentAsString()).get("id").asLong();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(patch("/api/tasks/" + id + "/toggleComplete")
+                            .header("Authorization", "Bearer " + token)
+                            .header("Idempotency-Key", "alternar-1"))
+                    .andExpect(status().isOk());
+        }
+        assertEquals(true, tareaRepository.findById(id).orElseThrow().isCompletada());
+    }
+
+    @Test
+    void losDuplicadosConcurrentesEsperanALaPrimera() throws Exception {
+        String token = token("concurrentes");
+        int peticiones = 16;
+
+        ExecutorService pool = Executors.newFixedThreadPool(peticiones);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<String>> respuestas = new ArrayList<>();
+        for (int i = 0; i < peticiones; i++) {
+            respuestas.add(pool.submit(() -> {
+                salida.await();
+                return crear(token, "clave-concurrente", "A la vez").andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+            }));
+        }
+        salida.countDown();
+        String primera = respuestas.get(0).get(30, TimeUnit.SECONDS);
+        for (Future<String> respuesta : respuestas) {
+            assertEquals(primera, respuesta.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(1, tareas("concurrentes"));
+    }
+
+    @Test
+    void conLaTablaLaRespuestaSobreviveAUnReinicio() throws Exception {
+        String token = token("reinicio");
+        String cuerpo = crear(token, "clave-reinicio", "Antes del reinicio").andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String huella = claveIdempotenciaRepository.findAll().stream()
+                .filter(c -> c.getEstado() != null && new String(c.getCuerpo()).equals(cuerpo))
+                .findFirst().orElseThrow().getHuella();
+
+        // Un almacén nuevo no tiene nada en memoria: es lo que vería la aplicación tras arrancar otra vez
+        AlmacenIdempotencia trasReinicio = new AlmacenIdempotencia(properties, claveIdempotenciaRepository, new SimpleMeterRegistry());
+        AlmacenIdempotencia.Reserva reserva = trasReinicio.reservar("reinicio", "clave-reinicio", huella);
+        assertEquals(AlmacenIdempotencia.Tipo.REPETIDA, reserva.tipo());
+        assertEquals(cuerpo, new String(reserva.respuesta().cuerpo()));
+
+        // Una clave que nunca se completó (5xx) se libera y el reintento se ejecuta
+        AlmacenIdempotencia.Reserva nueva = trasReinicio.reservar("reinicio", "clave-fallida", huella);
+        assertEquals(AlmacenIdempotencia.Tipo.NUEVA, nueva.tipo());
+        trasReinicio.liberar(nueva.id());
+        assertNull(claveIdempotenciaRepository.findById(nueva.id()).orElse(null));
+        assertEquals(AlmacenIdempotencia.Tipo.NUEVA, trasReinicio.reservar("reinicio", "clave-fallida", huella).tipo());
+    }
+
+    private ResultActions crear(String token, String clave, String titulo) throws Exception {
+        return mockMvc.perform(post("/api/tasks/create")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"titulo\":\"" + titulo + "\",\"descripcion\":\"Tarea idempotente\"}"));
+    }
+
+    private long tareas(String username) {
+        return tareaRepository.findByUsuarioUsername(username, Sort.unsorted()).size();
+    }
+
+    private String token(String username) throws Exception {
+        String respuesta = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", username + "123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta).get("token").asText();
+    }
+}
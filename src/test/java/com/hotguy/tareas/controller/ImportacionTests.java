@@ -0,0 +1,171 @@
+package com.hotguy.tareas.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.config.ImportacionProperties;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.security.JwtUtil;
+import com.hotguy.tareas.service.ImportadorTareas;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "importacion.filas-por-commit=5000",
+        "importacion.max-rechazos-informe=10",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=warn"
+})
+@AutoConfigureMockMvc
+class ImportacionTests {
+
+    private static final int FILAS = 100_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImportadorTareas importadorTareas;
+
+    @Autowired
+    private ImportacionProperties importacionProperties;
+
+    @Test
+    void importaNdjsonPorTandasYRechazaLasFilasInvalidas() throws Exception {
+        Usuario usuario = usuario("importador");
+        String token = jwtUtil.generarToken(usuario);
+
+        // Cada 1000 filas una inválida: descripción demasiado corta o JSON roto
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= FILAS; i++) {
+            if (i % 2000 == 0) {
+                ndjson.append("{\"titulo\":\"Rota ").append(i).append("\",\n");
+            } else if (i % 1000 == 0) {
+                ndjson.append("{\"titulo\":\"Corta ").append(i).append("\",\"descripcion\":\"x\"}\n");
+            } else {
+                ndjson.append("{\"titulo\":\"Tarea ").append(i).append("\",\"descripcion\":\"Importada ").append(i)
+                        .append("\",\"completada\":").append(i % 2 == 0).append("}\n");
+            }
+        }
+        byte[] cuerpo = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        String respuesta = mockMvc.perform(post("/api/tasks/import")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType("application/x-ndjson")
+                        .content(cuerpo))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        int invalidas = FILAS / 1000;
+        JsonNode resultado = objectMapper.readTree(respuesta);
+        assertEquals(true, resultado.get("terminada").asBoolean());
+        assertEquals(FILAS, resultado.get("leidas").asLong());
+        assertEquals(FILAS - invalidas, resultado.get("importadas").asLong());
+        assertEquals(invalidas, resultado.get("rechazadas").asLong());
+        assertEquals(10, resultado.get("rechazos").size()); // Solo se detallan importacion.max-rechazos-informe
+        assertEquals(1000, resultado.get("rechazos").get(0).get("linea").asLong());
+        assertEquals(2000, resultado.get("rechazos").get(1).get("linea").asLong());
+
+        // Cada tarea con su propio número de cambio y el contador del usuario al final del tramo
+        assertEquals(FILAS - invalidas, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT secuencia_cambio) FROM tareas WHERE usuario_id = ?", Long.class, usuario.getId()));
+        assertEquals(FILAS - invalidas, jdbcTemplate.queryForObject(
+                "SELECT secuencia_cambios FROM usuarios WHERE id = ?", Long.class, usuario.getId()));
+
+        String progreso = mockMvc.perform(get("/api/tasks/import/progress").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(FILAS - invalidas, objectMapper.readTree(progreso).get("importadas").asLong());
+    }
+
+    @Test
+    void importaCsvConComillasYSaltosDeLinea() throws Exception {
+        Usuario usuario = usuario("importadorcsv");
+        String csv = """
+                descripcion,titulo,completada
+                "Con, coma",Primera,true
+                "Con ""comillas""
+                y salto de línea",Segunda,0
+                Ya hecha,Tercera,quizas
+                x,Cuarta,
+                """;
+
+        String respuesta = mockMvc.perform(post("/api/tasks/import")
+                        .header("Authorization", "Bearer " + jwtUtil.generarToken(usuario))
+                        .contentType("text/csv")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode resultado = objectMapper.readTree(respuesta);
+        assertEquals(4, resultado.get("leidas").asLong());
+        assertEquals(2, resultado.get("importadas").asLong());
+        assertEquals(5, resultado.get("rechazos").get(0).get("linea").asLong());
+        assertEquals(6, resultado.get("rechazos").get(1).get("linea").asLong());
+        assertEquals("Con \"comillas\"\ny salto de línea", jdbcTemplate.queryForObject(
+                "SELECT descripcion FROM tareas WHERE usuario_id = ? AND titulo = 'Segunda'", String.class, usuario.getId()));
+        assertEquals(true, jdbcTemplate.queryForObject(
+                "SELECT completada FROM tareas WHERE usuario_id = ? AND titulo = 'Primera'", Boolean.class, usuario.getId()));
+    }
+
+    @Test
+    void elProgresoDeUnaImportacionTerminadaCaducaTrasLaRetencion() throws Exception {
+        String token = jwtUtil.generarToken(usuario("importadorolvidado"));
+        long retencion = importacionProperties.getRetencionSegundos();
+        try {
+            importacionProperties.setRetencionSegundos(0);
+            mockMvc.perform(post("/api/tasks/import")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType("application/x-ndjson")
+                            .content("{\"titulo\":\"Única\",\"descripcion\":\"Se olvida al terminar\"}\n"))
+                    .andExpect(status().isOk());
+        } finally {
+            importacionProperties.setRetencionSegundos(retencion);
+        }
+
+        importadorTareas.limpiar();
+        mockMvc.perform(get("/api/tasks/import/progress").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+
+        // La siguiente importación del usuario se registra como siempre y vuelve a durar la retención completa
+        mockMvc.perform(post("/api/tasks/import")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType("application/x-ndjson")
+                        .content("{\"titulo\":\"Otra\",\"descripcion\":\"Esta se conserva\"}\n"))
+                .andExpect(status().isOk());
+        importadorTareas.limpiar();
+        mockMvc.perform(get("/api/tasks/import/progress").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    private Usuario usuario(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        return usuarioRepository.save(usuario);
+    }
+}
@@ -0,0 +1,133 @@
+package com.hotguy.tareas.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.service.TareaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PaginacionTareasTests {
+
+    private static final int TOTAL = TareaService.LIMITE_MAXIMO + 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    private static boolean preparado;
+
+    private String token;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        token = token("paginador", "paginador123");
+        if (!preparado) {
+            Usuario usuario = usuarioRepository.findByUsername("paginador").orElseThrow();
+            List<Tarea> tareas = new ArrayList<>();
+            for (int i = 0; i < TOTAL; i++) {
+                Tarea tarea = new Tarea("Tarea " + i, "Paginada " + i);
+                tarea.setCompletada(i % 2 == 0);
+                tarea.setUsuario(usuario);
+                tareas.add(tarea);
+            }
+            tareaRepository.saveAll(tareas);
+            preparado = true;
+        }
+    }
+
+    @Test
+    void lasPaginasRecorrenLaListaCompletaEnElMismoOrden() throws Exception {
+        // Muchas tareas empatan en estado y casi en fecha: el id desempata y ninguna se repite ni se pierde
+        for (String orden : List.of("estado_asc,fecha_desc", "fecha_asc")) {
+            List<Long> esperado = ids(listar(get("/api/tasks/list").param("orden", orden)));
+
+            List<Long> recorrido = new ArrayList<>();
+            String cursor = null;
+            do {
+                MockHttpServletRequestBuilder peticion = get("/api/tasks/list").param("orden", orden).param("limit", "37");
+                if (cursor != null) peticion.param("cursor", cursor);
+                JsonNode pagina = listar(peticion);
+                assertTrue(pagina.get("tareas").size() <= 37);
+                recorrido.addAll(ids(pagina.get("tareas")));
+                cursor = pagina.get("siguienteCursor").isNull() ? null : pagina.get("siguienteCursor").asText();
+            } while (cursor != null);
+
+            assertEquals(TOTAL, esperado.size());
+            assertEquals(esperado, recorrido);
+        }
+    }
+
+    @Test
+    void cursorInvalidoDevuelve400() throws Exception {
+        for (String cursor : List.of("no-es-base64!", "YmFzdXJh", "dHJ1ZXx4fDE")) {
+            mockMvc.perform(get("/api/tasks/list").param("cursor", cursor).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void elLimiteSeAcotaEntreUnoYElMaximo() throws Exception {
+        assertEquals(TareaService.LIMITE_POR_DEFECTO, listar(get("/api/tasks/list").param("cursor", "")).get("tareas").size());
+        assertEquals(1, listar(get("/api/tasks/list").param("limit", "0")).get("tareas").size());
+        assertEquals(1, listar(get("/api/tasks/list").param("limit", "-5")).get("tareas").size());
+        assertEquals(TareaService.LIMITE_MAXIMO, listar(get("/api/tasks/list").param("limit", "100000")).get("tareas").size());
+    }
+
+    private JsonNode listar(MockHttpServletRequestBuilder peticion) throws Exception {
+        String respuesta = mockMvc.perform(peticion.header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta);
+    }
+
+    private static List<Long> ids(JsonNode tareas) {
+        List<Long> ids = new ArrayList<>();
+        tareas.forEach(t -> ids.add(t.get("id").asLong()));
+        return ids;
+    }
+
+    private String token(String username, String password) throws Exception {
+        String respuesta = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))))
+                .andReturn().getResponse().getContentAsString();
+        if (!respuesta.contains("token")) {
+            respuesta = mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+        }
+        return objectMapper.readTree(respuesta).get("token").asText();
+    }
+}
@@ -0,0 +1,134 @@
+package com.hotguy.tareas.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class PeticionesCondicionalesTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listaResponde304SinListarYCambiaConAltasYBorrados() throws Exception {
+        String token = token("/api/auth/register", "condicional", "condicional123");
+        long id = crearTarea(token, "Primera");
+
+        mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+
+        // Sin If-None-Match no hay consulta del validador: el ETag sale de la propia lista
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        MvcResult primera = mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        String etag = primera.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertNotNull(primera.getResponse().getHeader(HttpHeaders.LAST_MODIFIED));
+
+        // 304: solo la consulta del validador (COUNT/MAX), sin el listado; y coincide con el ETag deducido de la lista
+        estadisticas.clear();
+        mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        crearTarea(token, "Segunda");
+        String trasAlta = etagLista(token, etag);
+        assertNotEquals(etag, trasAlta);
+
+        // Un borrado reduce el total: el ETag anterior deja de valer
+        String admin = token("/api/auth/login", "admin", "admin123");
+        mockMvc.perform(delete("/api/tasks/" + id).header("Authorization", "Bearer " + admin))
+                .andExpect(status().isNoContent());
+        assertNotEquals(trasAlta, etagLista(token, trasAlta));
+    }
+
+    @Test
+    void listaFiltradaYPaginadaTambienLlevanEtag() throws Exception {
+        String token = token("/api/auth/register", "condicionalfiltro", "condicional123");
+        crearTarea(token, "Filtrada");
+
+        String completa = mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        for (String consulta : new String[]{"?completada=false", "?limit=10"}) {
+            String etag = mockMvc.perform(get("/api/tasks/list" + consulta).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertEquals(completa, etag); // Versión de toda la colección, no de la vista
+            mockMvc.perform(get("/api/tasks/list" + consulta).header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+        }
+    }
+
+    @Test
+    void perfilResponde304ConElMismoEtag() throws Exception {
+        String token = token("/api/auth/register", "perfilcondicional", "perfil123");
+
+        String etag = mockMvc.perform(get("/api/user/profile").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/user/profile").header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etagLista(String token, String ifNoneMatch) throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                .andReturn();
+        assertEquals(200, resultado.getResponse().getStatus());
+        return resultado.getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private long crearTarea(String token, String titulo) throws Exception {
+        String respuesta = mockMvc.perform(post("/api/tasks/create")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titulo\":\"" + titulo + "\",\"descripcion\":\"Tarea condicional\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta).get("id").asLong();
+    }
+
+    private String token(String ruta, String username, String password) throws Exception {
+        String respuesta = mockMvc.perform(post(ruta)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta).get("token").asText();
+    }
+}
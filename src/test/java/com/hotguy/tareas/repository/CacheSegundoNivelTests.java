@@ -0,0 +1,128 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.config.CacheConfig;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.service.TareaService;
+import com.hotguy.tareas.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CacheSegundoNivelTests {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics estadisticas;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void preparar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        usuario = usuarioRepository.findByUsername("cacheado").orElseGet(() -> {
+            Usuario nuevo = new Usuario();
+            nuevo.setUsername("cacheado");
+            nuevo.setPassword("x");
+            nuevo.setRol("USER");
+            return usuarioRepository.save(nuevo);
+        });
+        entityManagerFactory.getCache().evictAll();
+        estadisticas.clear();
+    }
+
+    @Test
+    void usuarioPorUsernameSoloConsultaLaPrimeraVez() {
+        usuarioService.loadUserByUsername("cacheado");
+        long sentenciasPrimera = estadisticas.getPrepareStatementCount();
+
+        usuarioService.loadUserByUsername("cacheado");
+        usuarioService.loadUserByUsername("cacheado");
+
+        assertTrue(sentenciasPrimera > 0);
+        assertEquals(sentenciasPrimera, estadisticas.getPrepareStatementCount());
+        assertTrue(estadisticas.getNaturalIdCacheHitCount() >= 2);
+
+        double aciertos = meterRegistry.get("hibernate.second.level.cache.requests")
+                .tags("region", CacheConfig.REGION_USUARIOS, "result", "hit")
+                .functionCounter().count();
+        assertTrue(aciertos >= 2);
+    }
+
+    @Test
+    void cambiarRolActualizaLaCache() {
+        usuarioService.loadUserByUsername("cacheado");
+
+        usuarioService.cambiarRol(usuario.getId(), "ADMIN");
+        try {
+            assertEquals("ADMIN", usuarioRepository.findByUsername("cacheado").orElseThrow().getRol());
+        } finally {
+            usuarioService.cambiarRol(usuario.getId(), "USER");
+        }
+        assertEquals("USER", usuarioRepository.findByUsername("cacheado").orElseThrow().getRol());
+    }
+
+    @Test
+    void alternarYEditarSoloExpulsanLaTareaCambiada() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Tarea tarea = new Tarea("Cacheada " + i, "Tarea en caché");
+            tarea.setUsuario(usuario);
+            ids.add(tareaRepository.save(tarea).getId());
+        }
+        Long id = ids.get(0);
+        ids.forEach(tareaRepository::findById); // Fallos: se cargan en la región
+        CacheRegionStatistics region = estadisticas.getDomainDataRegionStatistics(CacheConfig.REGION_TAREAS);
+        long fallosIniciales = region.getMissCount();
+
+        tareaService.toggleCompletada(id, "cacheado");
+        assertTrue(tareaRepository.findById(id).orElseThrow().isCompletada());
+
+        tareaService.editarTarea(id, "cacheado", "Descripción editada", null, null);
+        assertEquals("Descripción editada", tareaRepository.findById(id).orElseThrow().getDescripcion());
+
+        // Las otras nueve siguen en caché: se leen sin ir a la BD
+        long sentencias = estadisticas.getPrepareStatementCount();
+        for (int vuelta = 0; vuelta < 3; vuelta++) {
+            ids.subList(1, ids.size()).forEach(tareaRepository::findById);
+        }
+        assertEquals(sentencias, estadisticas.getPrepareStatementCount());
+
+        // Solo fallan las dos lecturas de la tarea cambiada (una tras alternar y otra tras editar)
+        assertEquals(fallosIniciales + 2, region.getMissCount());
+        double aciertos = region.getHitCount();
+        double ratio = aciertos / (aciertos + region.getMissCount());
+        assertTrue(aciertos >= 27, () -> "Aciertos: " + aciertos);
+        assertTrue(ratio > 0.6, () -> "Ratio de aciertos: " + ratio);
+    }
+}
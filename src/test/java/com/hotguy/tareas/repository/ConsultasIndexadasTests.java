@@ -0,0 +1,136 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.model.Usuario;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Ejecuta cada consulta de los repositorios, captura el SQL que genera Hibernate y comprueba con EXPLAIN que ninguna recorre la tabla entera
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.hotguy.tareas.repository.ConsultasIndexadasTests$CapturaSql")
+class ConsultasIndexadasTests {
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TareaEliminadaRepository tareaEliminadaRepository;
+
+    @Autowired
+    private TareaArchivadaRepository tareaArchivadaRepository;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void limpiar() {
+        CapturaSql.SENTENCIAS.clear();
+    }
+
+    @Test
+    void ningunaConsultaHaceFullScan() throws Exception {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        Sort porFecha = Sort.by("fechaCreacion").descending();
+        Sort porEstadoYFecha = Sort.by(Sort.Order.asc("completada"), Sort.Order.desc("fechaCreacion"));
+        ScrollPosition cursor = ScrollPosition.forward(Map.of("completada", false, "fechaCreacion", LocalDateTime.now(), "id", 10L));
+
+        usuarioRepository.findByUsername("explain");
+        tareaRepository.findByUsuario(usuario, porFecha);
+        tareaRepository.findByUsuarioAndCompletada(usuario, true, porFecha);
+        tareaRepository.findByUsuarioUsername("explain", porFecha);
+        tareaRepository.findByUsuarioUsernameAndCompletada("explain", false, porEstadoYFecha);
+        tareaRepository.findByUsuarioUsername("explain", cursor, porEstadoYFecha, Limit.of(20));
+        tareaRepository.findByUsuarioUsernameAndCompletada("explain", false, cursor, porEstadoYFecha, Limit.of(20));
+        tareaRepository.findVistaById(1L);
+        tareaRepository.existsByIdAndUsuarioUsername(1L, "explain");
+        tareaRepository.findByIdInAndUsuarioUsername(List.of(1L, 2L), "explain");
+        tareaRepository.obtenerVersionColeccion("explain");
+        tareaRepository.findByUsuarioIdAndSecuenciaCambioBetweenOrderBySecuenciaCambio(1L, 1L, 10L, Limit.of(20));
+        usuarioRepository.obtenerSecuenciaCambios(1L);
+        tareaArchivadaRepository.findVistasByUsername("explain", porFecha);
+        tareaEliminadaRepository.findByUsuarioIdAndSecuenciaCambioBetweenOrderBySecuenciaCambio(1L, 1L, 10L, Limit.of(20));
+        tareaEliminadaRepository.findById(1L);
+        claveIdempotenciaRepository.findById("explain");
+        claveIdempotenciaRepository.guardarRespuesta("explain", 200, "application/json", new byte[0], LocalDateTime.now());
+        claveIdempotenciaRepository.liberar("explain");
+        claveIdempotenciaRepository.borrarSiCaducada("explain", LocalDateTime.now());
+        claveIdempotenciaRepository.purgar(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(tx -> {
+            usuarioRepository.bloquearPorUsername("explain");
+            usuarioRepository.bloquearPorId(1L);
+            tareaRepository.alternarCompletada(1L, "explain", 1L, LocalDateTime.now());
+            tareaRepository.editar(1L, "explain", "Descripción", null, 0L, 2L, LocalDateTime.now());
+            tareaEliminadaRepository.compactar(LocalDateTime.now());
+            try (Stream<TareaView> tareas = tareaRepository.streamByUsuarioUsernameOrderById("explain")) {
+                tareas.count();
+            }
+        });
+
+        List<String> sentencias = new ArrayList<>(CapturaSql.SENTENCIAS);
+        for (String tabla : List.of(" tareas ", " usuarios ", " tareas_eliminadas ", " tareas_archivo ", " claves_idempotencia ")) {
+            assertTrue(sentencias.stream().anyMatch(sql -> sql.contains(tabla)), () -> "Ninguna consulta sobre" + tabla);
+        }
+
+        try (Connection conexion = dataSource.getConnection()) {
+            for (String sql : sentencias) {
+                String plan = explicar(conexion, sql);
+                assertFalse(plan.contains("tableScan"), () -> "Full scan en:\n" + plan);
+                assertTrue(plan.contains("/* PUBLIC."), () -> "Plan sin índice en:\n" + plan);
+            }
+        }
+    }
+
+    private static String explicar(Connection conexion, String sql) throws Exception {
+        try (ResultSet rs = conexion.prepareStatement("EXPLAIN " + sql).executeQuery()) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) plan.append(rs.getString(1)).append('\n');
+            return plan.toString();
+        }
+    }
+
+    // Hibernate lo instancia por nombre de clase: guarda en una lista estática cada SELECT/UPDATE/DELETE sobre
+    // cualquier tabla (los INSERT no buscan filas y la secuencia no es una tabla)
+    public static class CapturaSql implements StatementInspector {
+
+        static final List<String> SENTENCIAS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            String minusculas = sql.toLowerCase();
+            if ((minusculas.startsWith("select") || minusculas.startsWith("update") || minusculas.startsWith("delete"))
+                    && !minusculas.contains("next value for")) {
+                SENTENCIAS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.service.TareaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Una BD de antes de Flyway (volcado de la aplicación inicial): se marca como versión 1, recibe el resto de
+// migraciones y pasa la validación de ddl-auto=validate con sus datos intactos
+@SpringBootTest(properties = {
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=1"
+})
+class MigracionPreviaFlywayTests {
+
+    private static final String URL = "jdbc:h2:mem:previa-flyway-tests;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Se carga antes de que el contexto (y con él Flyway) abra la BD
+    @DynamicPropertySource
+    static void cargarVolcado(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection conexion = DriverManager.getConnection(URL, "hotguy", "");
+             Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("RUNSCRIPT FROM 'classpath:db/baseline/h2-previa-flyway.sql'");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void arrancaSobreLaBdAnteriorYConservaSusTareas() {
+        List<String> versiones = jdbcTemplate.queryForList("""
+                SELECT "version" FROM "flyway_schema_history"
+                WHERE "success" AND "version" IS NOT NULL ORDER BY "installed_rank"
+                """, String.class);
+        assertEquals("1", versiones.get(0)); // La línea base, sin ejecutar V1
+        assertEquals("8", versiones.get(versiones.size() - 1));
+
+        // Las tareas anteriores tienen versión 0 y siguen siendo editables
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM tareas WHERE id = 1", Long.class));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+        assertEquals(1, tareaService.toggleCompletada(1L, "admin").version());
+
+        // Los ids nuevos salen de tareas_seq, por encima de los que asignó IDENTITY
+        Tarea nueva = tareaService.crearTarea("Nueva", "Tras migrar");
+        assertTrue(nueva.getId() > 2);
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tareas", Long.class));
+    }
+}
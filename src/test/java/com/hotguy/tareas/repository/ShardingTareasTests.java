@@ -0,0 +1,195 @@
+package com.hotguy.tareas.repository;
+
+import com.hotguy.tareas.dto.CambiosTareas;
+import com.hotguy.tareas.dto.EstadoShard;
+import com.hotguy.tareas.dto.ResultadoRebalanceo;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.service.CompactadorLapidas;
+import com.hotguy.tareas.service.RebalanceadorShards;
+import com.hotguy.tareas.service.TareaService;
+import com.hotguy.tareas.service.UsuarioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tres H2 en memoria: el directorio (shard 0) y dos nodos; al empezar solo están activos los shards 0 y 1
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0-tests",
+        "shards.habilitado=true",
+        "shards.activos=2",
+        "shards.hilos-consulta=3",
+        "shards.nodos[0].url=jdbc:h2:mem:shard1-tests;DB_CLOSE_DELAY=-1",
+        "shards.nodos[0].username=hotguy",
+        "shards.nodos[1].url=jdbc:h2:mem:shard2-tests;DB_CLOSE_DELAY=-1",
+        "shards.nodos[1].username=hotguy"
+})
+class ShardingTareasTests {
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private DirectorioShards directorioShards;
+
+    @Autowired
+    private RebalanceadorShards rebalanceadorShards;
+
+    @Autowired
+    private CompactadorLapidas compactadorLapidas;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cadaUsuarioTieneSusTareasEnSuShard() {
+        Map<Usuario, Integer> usuarios = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            Usuario usuario = crearUsuario("sharding" + i);
+            autenticar(usuario.getUsername());
+            ids.add(tareaService.crearTarea("Primera", "Primera tarea").getId());
+            ids.add(tareaService.crearTarea("Segunda", "Segunda tarea").getId());
+            usuarios.put(usuario, directorioShards.shardDe(usuario.getId()));
+        }
+        assertEquals(24, ids.size()); // Cada shard genera ids en su tramo: nunca se repiten
+        assertTrue(new HashSet<>(usuarios.values()).size() > 1); // Repartidos entre los shards activos
+
+        usuarios.forEach((usuario, shard) -> {
+            for (int nodo = 0; nodo < directorioShards.numero(); nodo++) {
+                assertEquals(nodo == shard ? 2 : 0, contarTareas(nodo, usuario.getId()));
+            }
+            assertEquals(2, tareaService.obtenerTareasFiltradasYOrdenadas(usuario.getUsername(), null, "fecha_desc").size());
+        });
+
+        // Un ADMIN borra por id sin saber de quién es: la tarea se busca en todos los shards
+        Usuario fuera = usuarios.keySet().stream().filter(u -> usuarios.get(u) > 0).findFirst().orElseThrow();
+        CambiosTareas inicial = tareaService.obtenerCambios(fuera.getUsername(), null, null);
+        Long borrada = tareaService.obtenerTareasFiltradasYOrdenadas(fuera.getUsername(), null, "fecha_desc").get(0).id();
+        assertTrue(tareaService.eliminarTarea(borrada));
+        assertEquals(1, contarTareas(usuarios.get(fuera), fuera.getId()));
+        assertEquals(List.of(borrada), tareaService.obtenerCambios(fuera.getUsername(), inicial.marca(), null).eliminadas());
+
+        long total = directorioShards.estado().stream().mapToLong(EstadoShard::tareas).sum();
+        assertTrue(total >= 23);
+        assertEquals(0, compactadorLapidas.compactar()); // Recorre todos los shards; aún no hay lápidas caducadas
+    }
+
+    @Test
+    void alAnadirUnShardSoloSeMuevenLosUsuariosQueLeTocan() {
+        List<Usuario> usuarios = new ArrayList<>();
+        Map<Long, Integer> antes = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            Usuario usuario = crearUsuario("rebalanceo" + i);
+            autenticar(usuario.getUsername());
+            for (int j = 0; j < 3; j++) {
+                tareaService.crearTarea("Tarea " + j, "Antes del rebalanceo");
+            }
+            usuarios.add(usuario);
+            antes.put(usuario.getId(), directorioShards.shardDe(usuario.getId()));
+        }
+
+        ResultadoRebalanceo resultado = rebalanceadorShards.anadirShard();
+        assertEquals(2, resultado.shardNuevo());
+        assertEquals(3, directorioShards.activos());
+
+        long movidos = 0;
+        for (Usuario usuario : usuarios) {
+            int ahora = directorioShards.shardDe(usuario.getId());
+            if (ahora != antes.get(usuario.getId())) {
+                assertEquals(2, ahora); // Con hash jump solo se va al shard nuevo
+                assertEquals(0, contarTareas(antes.get(usuario.getId()), usuario.getId()));
+                movidos++;
+            }
+            assertEquals(3, contarTareas(ahora, usuario.getId()));
+            if (ahora > 0) assertNull(copiaEnShard(ahora, usuario.getId()).get("rol")); // En el 0 es la fila del directorio
+
+            // Tras moverse sigue leyendo y escribiendo con normalidad (y su secuencia de cambios continúa)
+            autenticar(usuario.getUsername());
+            Tarea nueva = tareaService.crearTarea("Después", "Tras el rebalanceo");
+            assertEquals(4, nueva.getSecuenciaCambio());
+            assertEquals(4, tareaService.obtenerTareasFiltradasYOrdenadas(usuario.getUsername(), null, "fecha_desc").size());
+        }
+        assertTrue(movidos > 0);
+        assertTrue(resultado.usuariosMovidos() >= movidos); // Incluye usuarios de otros tests del mismo contexto
+
+        // No queda ningún nodo configurado sin usar
+        assertThrows(ResponseStatusException.class, () -> rebalanceadorShards.anadirShard());
+    }
+
+    @Test
+    void unCambioDeRolTrasRepartirLosUsuariosSeVeAlCargarlos() {
+        Usuario usuario = null;
+        for (int i = 0; usuario == null; i++) {
+            Usuario candidato = crearUsuario("rolsharding" + i);
+            if (directorioShards.shardDe(candidato.getId()) > 0) usuario = candidato; // Con copia fuera del directorio
+        }
+        int shard = directorioShards.shardDe(usuario.getId());
+        autenticar(usuario.getUsername());
+        tareaService.crearTarea("Antes", "Antes del cambio de rol");
+
+        // La copia del shard solo sirve para la clave foránea y el bloqueo: ni password ni rol
+        Map<String, Object> copia = copiaEnShard(shard, usuario.getId());
+        assertNull(copia.get("password"));
+        assertNull(copia.get("rol"));
+
+        assertTrue(usuarioService.cambiarRol(usuario.getId(), "ADMIN"));
+
+        // Escrituras y lecturas en el shard bloquean y cargan la copia; no deben tapar el rol ni la password del directorio
+        tareaService.crearTarea("Después", "Tras el cambio de rol");
+        assertEquals(2, tareaService.obtenerCambios(usuario.getUsername(), null, null).actualizadas().size());
+        UserDetails cargado = usuarioService.loadUserByUsername(usuario.getUsername());
+        assertEquals("x", cargado.getPassword());
+        assertEquals(List.of("ROLE_ADMIN"), cargado.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    private Map<String, Object> copiaEnShard(int shard, long usuarioId) {
+        return new JdbcTemplate(directorioShards.nodo(shard))
+                .queryForMap("SELECT password, rol FROM usuarios WHERE id = ?", usuarioId);
+    }
+
+    private long contarTareas(int shard, long usuarioId) {
+        return new JdbcTemplate(directorioShards.nodo(shard))
+                .queryForObject("SELECT COUNT(*) FROM tareas WHERE usuario_id = ?", Long.class, usuarioId);
+    }
+
+    private Usuario crearUsuario(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        return usuarioRepository.save(usuario); // Siempre en el directorio
+    }
+
+    private static void autenticar(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+}
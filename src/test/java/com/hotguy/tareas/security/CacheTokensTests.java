@@ -0,0 +1,47 @@
+package com.hotguy.tareas.security;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheTokensTests {
+
+    @Test
+    void llenaNoPasaDelLimite() {
+        CacheTokens cache = new CacheTokens(100);
+        long ahora = System.currentTimeMillis();
+        for (int i = 0; i < 1_000; i++) {
+            cache.guardar("token-" + i, verificado("u" + i, ahora + 60_000), ahora);
+        }
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    void losCaducadosNoSeDevuelven() {
+        CacheTokens cache = new CacheTokens(100);
+        long ahora = System.currentTimeMillis();
+        cache.guardar("corto", verificado("corto", ahora + 50), ahora);
+        assertNotNull(cache.obtener("corto", ahora));
+        assertNull(cache.obtener("corto", ahora + 50));
+
+        cache.guardar("caducado", verificado("caducado", ahora - 1), ahora);
+        assertNull(cache.obtener("caducado", ahora));
+    }
+
+    @Test
+    void sinTamanoNoGuardaNada() {
+        CacheTokens cache = new CacheTokens(0);
+        long ahora = System.currentTimeMillis();
+        cache.guardar("token", verificado("u", ahora + 60_000), ahora);
+        assertNull(cache.obtener("token", ahora));
+        assertEquals(0, cache.size());
+    }
+
+    private static TokenVerificado verificado(String username, long expiraEnMillis) {
+        return new TokenVerificado(username, expiraEnMillis, Jwts.claims().subject(username).build());
+    }
+}
@@ -0,0 +1,154 @@
+package com.hotguy.tareas.security;
+
+import com.hotguy.tareas.config.LimiteTasaProperties;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "limite-tasa.auth.capacidad=3",
+        "limite-tasa.auth.por-segundo=0.001",
+        "limite-tasa.tareas.capacidad=5",
+        "limite-tasa.tareas.por-segundo=0.001"
+})
+@AutoConfigureMockMvc
+class LimiteTasaTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private LimitadorTasa limitador;
+
+    @Test
+    void elLoginSeLimitaPorIp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            login("10.0.0.1").andExpect(status().isUnauthorized())
+                    .andExpect(header().string(LimiteTasaFilter.CABECERA_RESTANTES, String.valueOf(2 - i)));
+        }
+        login("10.0.0.1").andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(header().string(LimiteTasaFilter.CABECERA_LIMITE, "3"))
+                .andExpect(header().string(LimiteTasaFilter.CABECERA_RESTANTES, "0"));
+
+        login("10.0.0.2").andExpect(status().isUnauthorized()); // Otra IP, otro cubo
+    }
+
+    @Test
+    void lasTareasSeLimitanPorUsuario() throws Exception {
+        String ruidoso = token("ruidoso");
+        for (int i = 0; i < 5; i++) {
+            listar(ruidoso).andExpect(status().isOk());
+        }
+        listar(ruidoso).andExpect(status().isTooManyRequests());
+        listar(token("tranquilo")).andExpect(status().isOk()); // Misma IP, otro usuario
+    }
+
+    @Test
+    void sinCerrojosNoSeConcedenMasTokensQueLaCapacidad() throws Exception {
+        LimiteTasaProperties.Limite limite = new LimiteTasaProperties.Limite(500, 0.001);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> hilos = new ArrayList<>();
+        for (int h = 0; h < 16; h++) {
+            hilos.add(pool.submit(() -> {
+                int concedidos = 0;
+                for (int i = 0; i < 100; i++) {
+                    if (limitador.tomar("prueba", limite, "compartida").permitida()) concedidos++;
+                }
+                return concedidos;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> hilo : hilos) total += hilo.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(500, total);
+
+        // Un cubo que ya se rellenó se puede descartar: es igual que uno nuevo
+        limitador.tomar("prueba", new LimiteTasaProperties.Limite(1, 1_000_000), "rapida");
+        int antes = limitador.cubos();
+        Thread.sleep(5);
+        limitador.limpiar();
+        assertEquals(antes - 1, limitador.cubos());
+    }
+
+    @Test
+    void conMaxCubosLlenoLasClavesNuevasCompartenUnCubo() throws Exception {
+        LimiteTasaProperties propiedades = new LimiteTasaProperties();
+        propiedades.setMaxCubos(2);
+        LimitadorTasa pequeno = new LimitadorTasa(propiedades, new SimpleMeterRegistry());
+        LimiteTasaProperties.Limite limite = new LimiteTasaProperties.Limite(1, 0.001);
+
+        assertTrue(pequeno.tomar("auth", limite, "10.0.0.1").permitida());
+        assertTrue(pequeno.tomar("auth", limite, "10.0.0.2").permitida());
+
+        // Las IPs nuevas no echan a las que ya están (que seguirían agotadas): van al cubo de desborde del grupo
+        assertTrue(pequeno.tomar("auth", limite, "10.0.0.3").permitida());
+        assertFalse(pequeno.tomar("auth", limite, "10.0.0.4").permitida());
+        assertFalse(pequeno.tomar("auth", limite, "10.0.0.1").permitida());
+        assertTrue(pequeno.tomar("tareas", limite, "ana").permitida()); // Otro grupo, otro desborde
+        assertEquals(4, pequeno.cubos());
+
+        // Los cubos agotados sobreviven a la limpieza; los ya rellenos se retiran y dejan sitio
+        pequeno.limpiar();
+        assertEquals(4, pequeno.cubos());
+        LimiteTasaProperties.Limite rapido = new LimiteTasaProperties.Limite(1, 1_000_000);
+        LimitadorTasa rellenable = new LimitadorTasa(propiedades, new SimpleMeterRegistry());
+        rellenable.tomar("auth", rapido, "10.0.0.1");
+        rellenable.tomar("auth", rapido, "10.0.0.2");
+        Thread.sleep(5);
+        rellenable.limpiar();
+        assertEquals(0, rellenable.cubos());
+        assertTrue(rellenable.tomar("auth", limite, "10.0.0.3").permitida());
+        assertEquals(1, rellenable.cubos()); // Cubo propio, no el de desborde
+    }
+
+    private ResultActions login(String ip) throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                .with(peticion -> {
+                    peticion.setRemoteAddr(ip);
+                    return peticion;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"nadie\",\"password\":\"incorrecta\"}"));
+    }
+
+    private ResultActions listar(String token) throws Exception {
+        return mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token));
+    }
+
+    private String token(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        return jwtUtil.generarToken(usuarioRepository.save(usuario));
+    }
+}
@@ -0,0 +1,47 @@
+package com.hotguy.tareas.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarcasCambioRolTests {
+
+    private final MarcasCambioRol marcas = new MarcasCambioRol(new JwtProperties());
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void noSeFiaDeTokensEmitidosAntesDeArrancar() throws InterruptedException {
+        long antes = System.currentTimeMillis() - 1000;
+        assertTrue(marcas.rolCambiadoDesde(1L, antes));
+
+        Thread.sleep(5);
+        assertFalse(marcas.rolCambiadoDesde(1L, System.currentTimeMillis()));
+    }
+
+    @Test
+    void unTokenEmitidoAntesDelCommitDelCambioNoVale() throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        marcas.marcarCambio(1L);
+
+        // Login entre la marca y el commit: todavía leería el rol antiguo
+        Thread.sleep(5);
+        long emitidoAntesDelCommit = System.currentTimeMillis();
+        Thread.sleep(5);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(marcas.rolCambiadoDesde(1L, emitidoAntesDelCommit));
+
+        Thread.sleep(5);
+        assertFalse(marcas.rolCambiadoDesde(1L, System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,191 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.security.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = {
+        "archivado.habilitado=true",
+        "archivado.edad-dias=30",
+        "archivado.tamano-lote=2",
+        "archivado.pausa-ms=1"
+})
+@AutoConfigureMockMvc
+class ArchivadorTareasTests {
+
+    @Autowired
+    private ArchivadorTareas archivadorTareas;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private ExportadorTareas exportadorTareas;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ThreadPoolTaskScheduler planificador;
+
+    @Test
+    void elArchivadorNoOcupaElUnicoHiloDelPlanificador() {
+        assertTrue(planificador.getScheduledThreadPoolExecutor().getCorePoolSize() > 1);
+    }
+
+    @Test
+    void mueveLasCompletadasAntiguasPorLotesYSeLeenConIncluirArchivadas() throws IOException {
+        Usuario usuario = crearUsuario("archivista");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Tarea tarea = new Tarea("Tarea " + i, "Descripción " + i);
+            tarea.setUsuario(usuario);
+            ids.add(tareaRepository.save(tarea).getId());
+        }
+        // 0-4: completadas hace 40 días (se archivan); 5: completada ayer; 6: pendiente antigua; 7: pendiente reciente
+        for (int i = 0; i < 5; i++) {
+            envejecer(ids.get(i), true, 40 + i);
+        }
+        envejecer(ids.get(5), true, 1);
+        envejecer(ids.get(6), false, 60);
+        tareaRepository.findById(ids.get(0)).orElseThrow(); // Queda en la caché de segundo nivel
+
+        double lotesAntes = registry.timer("archivado.lote").count();
+        double filasAntes = registry.counter("archivado.filas").count();
+        assertTrue(archivadorTareas.archivar() >= 5);
+
+        assertEquals(5, contar("tareas_archivo", usuario.getId()));
+        assertEquals(3, contar("tareas", usuario.getId()));
+        assertTrue(registry.timer("archivado.lote").count() - lotesAntes >= 3); // Lotes de 2
+        assertTrue(registry.counter("archivado.filas").count() - filasAntes >= 5);
+        assertFalse(tareaRepository.findById(ids.get(0)).isPresent());
+
+        // Sin el flag solo las activas; con él, todas en el orden pedido
+        assertEquals(3, tareaService.obtenerTareasFiltradasYOrdenadas("archivista", null, "fecha_desc").size());
+        List<TareaView> todas = tareaService.obtenerTareasConArchivadas("archivista", null, "fecha_asc");
+        assertEquals(ids, todas.stream().map(TareaView::id).toList());
+        assertEquals(6, tareaService.obtenerTareasConArchivadas("archivista", true, "fecha_desc").size());
+        assertEquals(2, tareaService.obtenerTareasConArchivadas("archivista", false, "fecha_desc").size());
+
+        // La exportación también las incluye si se pide: primero las activas y luego las archivadas
+        ByteArrayOutputStream activas = new ByteArrayOutputStream();
+        assertEquals(3, exportadorTareas.exportar("archivista", false, activas));
+        ByteArrayOutputStream exportadas = new ByteArrayOutputStream();
+        assertEquals(8, exportadorTareas.exportar("archivista", true, exportadas));
+        assertEquals(8, exportadas.toString(StandardCharsets.UTF_8).lines().count());
+
+        // Archivadas: de solo lectura
+        assertThrows(ResponseStatusException.class, () -> tareaService.toggleCompletada(ids.get(0), "archivista"));
+
+        archivadorTareas.archivar();
+        assertEquals(5, contar("tareas_archivo", usuario.getId()));
+    }
+
+    @Test
+    void avisaAlDuenoConResyncYUnAdminPuedeBorrarLasArchivadas() throws Exception {
+        Usuario usuario = crearUsuario("archivoavisado");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Tarea tarea = new Tarea("Tarea " + i, "Descripción " + i);
+            tarea.setUsuario(usuario);
+            ids.add(tareaRepository.save(tarea).getId());
+            envejecer(ids.get(i), true, 50 + i);
+        }
+        long secuenciaAntes = secuencia(usuario.getId());
+        MvcResult eventos = mockMvc.perform(get("/api/tasks/events")
+                        .header("Authorization", "Bearer " + jwtUtil.generarToken(usuario)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        archivadorTareas.archivar();
+        assertEquals(3, contar("tareas_archivo", usuario.getId()));
+
+        // Sin lápidas: el contador avanza y el cliente recibe "resync" con ese número de cambio
+        long secuencia = secuencia(usuario.getId());
+        assertTrue(secuencia > secuenciaAntes);
+        esperarContenido(eventos, "event:resync");
+
+        // Borrar una archivada deja su lápida como cualquier otro borrado
+        assertTrue(tareaService.eliminarTarea(ids.get(1)));
+        assertEquals(2, contar("tareas_archivo", usuario.getId()));
+        assertEquals(secuencia + 1, jdbcTemplate.queryForObject(
+                "SELECT secuencia_cambio FROM tareas_eliminadas WHERE tarea_id = ?", Long.class, ids.get(1)));
+        esperarContenido(eventos, "event:eliminada");
+        assertFalse(tareaService.eliminarTarea(ids.get(1)));
+        assertEquals(2, tareaService.obtenerTareasConArchivadas("archivoavisado", null, "fecha_asc").size());
+    }
+
+    // Los eventos SSE llegan desde otro hilo: se va mirando el cuerpo hasta que aparece el esperado
+    private static void esperarContenido(MvcResult eventos, String texto) throws Exception {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!eventos.getResponse().getContentAsString().contains(texto)) {
+            assertTrue(System.nanoTime() < limite, "No llegó " + texto + ": " + eventos.getResponse().getContentAsString());
+            Thread.sleep(5);
+        }
+    }
+
+    private long secuencia(Long usuarioId) {
+        return jdbcTemplate.queryForObject("SELECT secuencia_cambios FROM usuarios WHERE id = ?", Long.class, usuarioId);
+    }
+
+    // Las fechas de creación siguen el orden de los ids; solo cambia la última actualización
+    private void envejecer(Long id, boolean completada, int dias) {
+        jdbcTemplate.update("UPDATE tareas SET completada = ?, fecha_actualizacion = ? WHERE id = ?",
+                completada, LocalDateTime.now().minusDays(dias), id);
+    }
+
+    private long contar(String tabla, Long usuarioId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabla + " WHERE usuario_id = ?", Long.class, usuarioId);
+    }
+
+    private Usuario crearUsuario(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        return usuarioRepository.save(usuario);
+    }
+}
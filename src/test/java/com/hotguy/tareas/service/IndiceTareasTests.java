@@ -0,0 +1,173 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.config.IndiceProperties;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "indice.habilitado=true"
+})
+class IndiceTareasTests {
+
+    private static final List<String> ORDENES = List.of(
+            "fecha_desc", "fecha_asc", "estado_asc", "estado_desc",
+            "estado_asc,fecha_desc", "estado_desc,fecha_asc", "fecha_desc,estado_asc");
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void preparar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        if (usuarioRepository.findByUsername("indexado").isEmpty()) {
+            Usuario usuario = new Usuario();
+            usuario.setUsername("indexado");
+            usuario.setPassword("x");
+            usuario.setRol("USER");
+            usuarioRepository.save(usuario);
+
+            for (int i = 0; i < 30; i++) {
+                Tarea tarea = new Tarea("Tarea " + i, "Descripción " + i);
+                tarea.setCompletada(i % 4 == 0);
+                tarea.setUsuario(usuario);
+                tareaRepository.save(tarea);
+            }
+        }
+        ids = tareaRepository.findByUsuarioUsername("indexado", Sort.by("id")).stream().map(TareaView::id).toList();
+    }
+
+    @Test
+    void todasLasCombinacionesSeRespondenSinConsultasYCoincidenConLaBD() {
+        tareaService.obtenerTareasFiltradasYOrdenadas("indexado", null, "fecha_desc"); // Carga inicial
+        estadisticas.clear();
+
+        for (String orden : ORDENES) {
+            for (Boolean completada : new Boolean[]{null, true, false}) {
+                List<TareaView> indice = tareaService.obtenerTareasFiltradasYOrdenadas("indexado", completada, orden);
+                assertEquals(desdeBD(completada, orden), indice, orden + " / " + completada);
+            }
+        }
+        // desdeBD sí consulta: una SELECT por combinación y ninguna del índice
+        assertEquals(ORDENES.size() * 3L, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void lasEscriturasConcurrentesSeReflejanEnElIndice() throws Exception {
+        tareaService.obtenerTareasFiltradasYOrdenadas("indexado", null, "fecha_desc");
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Long id = ids.get(i % ids.size());
+            futuros.add(pool.submit(() -> tareaService.toggleCompletada(id, "indexado")));
+            futuros.add(pool.submit(() -> tareaService.obtenerTareasFiltradasYOrdenadas("indexado", true, "fecha_asc")));
+        }
+        for (Future<?> futuro : futuros) futuro.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        for (String orden : ORDENES) {
+            assertEquals(desdeBD(null, orden), tareaService.obtenerTareasFiltradasYOrdenadas("indexado", null, orden), orden);
+        }
+    }
+
+    @Test
+    void elPresupuestoDeMemoriaRetiraAlUsuarioMenosReciente() {
+        IndiceProperties properties = new IndiceProperties();
+        properties.setMaxTareas(10);
+        IndiceTareas indice = new IndiceTareas(properties);
+
+        indice.listar("a", null, Sort.unsorted(), () -> vistas(1, 6));
+        indice.listar("b", null, Sort.unsorted(), () -> vistas(100, 6)); // 12 > 10: sale "a"
+        assertEquals(6, indice.tareasEnMemoria());
+
+        indice.listar("c", null, Sort.unsorted(), () -> vistas(200, 11)); // No cabe ni solo: no se indexa
+        assertEquals(6, indice.tareasEnMemoria());
+        assertEquals(1, indice.usuariosEnMemoria()); // Ni queda una entrada vacía para "c"
+
+        int[] cargas = {0};
+        indice.listar("b", null, Sort.unsorted(), () -> {
+            cargas[0]++;
+            return vistas(100, 6);
+        });
+        assertEquals(0, cargas[0]);
+        assertTrue(indice.tareasEnMemoria() <= properties.getMaxTareas());
+    }
+
+    @Test
+    void lasAltasYElBarridoPeriodicoTambienRespetanElPresupuesto() {
+        IndiceProperties properties = new IndiceProperties();
+        properties.setMaxTareas(10);
+        IndiceTareas indice = new IndiceTareas(properties);
+
+        indice.listar("a", null, Sort.unsorted(), () -> vistas(1, 6));
+        indice.listar("b", null, Sort.unsorted(), () -> vistas(100, 4));
+        assertEquals(10, indice.tareasEnMemoria());
+
+        indice.guardar("b", vistas(104, 1).get(0)); // 11 > 10: sale "a", el menos reciente
+        assertEquals(5, indice.tareasEnMemoria());
+        assertEquals(1, indice.usuariosEnMemoria());
+
+        // Sin consultas durante inactividad-segundos el barrido lo retira aunque nadie más cargue
+        properties.setInactividadSegundos(0);
+        indice.liberarMemoria();
+        assertEquals(0, indice.tareasEnMemoria());
+        assertEquals(0, indice.usuariosEnMemoria());
+    }
+
+    // Misma combinación resuelta con el SQL de siempre
+    private List<TareaView> desdeBD(Boolean completada, String orden) {
+        // Mismos desempates que el índice: fecha de creación ascendente si no se pidió, e id en la dirección de la fecha
+        Sort base = TareaService.parsearOrden(orden);
+        Sort.Order fecha = base.getOrderFor("fechaCreacion");
+        Sort sort = fecha == null ? base.and(Sort.by("fechaCreacion", "id")) : base.and(Sort.by(fecha.getDirection(), "id"));
+        return completada == null
+                ? tareaRepository.findByUsuarioUsername("indexado", sort)
+                : tareaRepository.findByUsuarioUsernameAndCompletada("indexado", completada, sort);
+    }
+
+    private static List<TareaView> vistas(long desde, int cuantas) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<TareaView> vistas = new ArrayList<>();
+        for (int i = 0; i < cuantas; i++) {
+            vistas.add(new TareaView(desde + i, "T", "Descripción", false, ahora.plusSeconds(i), ahora, 0));
+        }
+        return vistas;
+    }
+}
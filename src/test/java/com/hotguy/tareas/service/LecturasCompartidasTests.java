@@ -0,0 +1,190 @@
+package com.hotguy.tareas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.security.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.hotguy.tareas.service.LecturasCompartidasTests$RetenerListado",
+        "limite-tasa.habilitado=false"
+})
+@AutoConfigureMockMvc
+class LecturasCompartidasTests {
+
+    private static final int PETICIONES = 16;
+
+    @Autowired
+    private LecturasCompartidas lecturasCompartidas;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void listadosIdenticosSimultaneosHacenUnaSolaConsulta() throws Exception {
+        crearUsuarioConTareas("pestanas", 20);
+        String token = jwtUtil.generarToken(usuarioRepository.findByUsername("pestanas").orElseThrow());
+        listar(token); // Calienta la caché del usuario: solo se cuenta el listado
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // La consulta del primero no se ejecuta hasta que los demás ya se han unido a ella
+        double compartidasAntes = compartidas();
+        RetenerListado.hasta = () -> compartidas() - compartidasAntes >= PETICIONES - 1;
+        ExecutorService pool = Executors.newFixedThreadPool(PETICIONES);
+        estadisticas.clear();
+        try {
+            List<Future<String>> respuestas = new ArrayList<>();
+            for (int i = 0; i < PETICIONES; i++) {
+                respuestas.add(pool.submit(() -> listar(token)));
+            }
+            String primera = respuestas.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<String> respuesta : respuestas) {
+                assertEquals(primera, respuesta.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(20, objectMapper.readTree(primera).size());
+        } finally {
+            RetenerListado.hasta = null;
+            pool.shutdown();
+        }
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(PETICIONES - 1, compartidas() - compartidasAntes);
+    }
+
+    @Test
+    void unaEscrituraImpideUnirseALaLecturaEnCurso() throws Exception {
+        List<Long> ids = crearUsuarioConTareas("escritor", 3);
+        CountDownLatch cargando = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        // Lectura lenta en curso, con los datos de antes de la escritura
+        Future<byte[]> antigua = pool.submit(() -> lecturasCompartidas.leer("escritor", "null|fecha_desc", () -> {
+            byte[] datos = serializar(tareaService.obtenerTareasFiltradasYOrdenadas("escritor", null, "fecha_desc"));
+            cargando.countDown();
+            esperar(soltar);
+            return datos;
+        }));
+        assertTrue(cargando.await(30, TimeUnit.SECONDS));
+
+        tareaService.toggleCompletada(ids.get(0), "escritor");
+
+        // La siguiente lectura no se une a la antigua: consulta otra vez y ya ve el cambio
+        byte[] nueva = lecturasCompartidas.leer("escritor", "null|fecha_desc",
+                () -> serializar(tareaService.obtenerTareasFiltradasYOrdenadas("escritor", null, "fecha_desc")));
+        soltar.countDown();
+        assertTrue(objectMapper.readTree(nueva).findValuesAsText("completada").contains("true"));
+        assertFalse(objectMapper.readTree(antigua.get(30, TimeUnit.SECONDS)).findValuesAsText("completada").contains("true"));
+        pool.shutdown();
+    }
+
+    private byte[] serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsBytes(valor);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String listar(String token) throws Exception {
+        return mockMvc.perform(get("/api/tasks/list").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private double compartidas() {
+        return registry.counter("lecturas.compartidas").count();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Long> crearUsuarioConTareas(String username, int cuantas) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        usuarioRepository.save(usuario);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < cuantas; i++) {
+            Tarea tarea = new Tarea("Tarea " + i, "Descripción " + i);
+            tarea.setUsuario(usuario);
+            ids.add(tareaRepository.save(tarea).getId());
+        }
+        return ids;
+    }
+
+    // Hibernate lo instancia por nombre de clase: mientras "hasta" no se cumple, retiene el listado de tareas justo
+    // antes de ejecutarlo (dentro de la carga compartida)
+    public static class RetenerListado implements StatementInspector {
+
+        static volatile BooleanSupplier hasta;
+
+        @Override
+        public String inspect(String sql) {
+            BooleanSupplier condicion = hasta;
+            if (condicion != null && sql.startsWith("select t1_0.id,t1_0.titulo")) {
+                long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (!condicion.getAsBoolean() && System.nanoTime() < limite) {
+                    Thread.onSpinWait();
+                }
+            }
+            return sql;
+        }
+    }
+}
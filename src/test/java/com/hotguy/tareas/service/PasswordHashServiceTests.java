@@ -0,0 +1,105 @@
+package com.hotguy.tareas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Un hilo y una plaza en cola: con dos trabajos retenidos el pool está lleno
+@SpringBootTest(properties = {
+        "hash.hilos=1",
+        "hash.cola=1",
+        "hash.retry-after-segundos=7",
+        "limite-tasa.habilitado=false"
+})
+@AutoConfigureMockMvc
+class PasswordHashServiceTests {
+
+    @Autowired
+    private PasswordHashService passwordHashService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void conElPoolLlenoLoginYRegistroResponden429ConRetryAfter() throws Exception {
+        double rechazosAntes = registry.counter("hash.rechazos").count();
+        CountDownLatch soltar = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newFixedThreadPool(2);
+        List<Future<Boolean>> retenidos = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            retenidos.add(clientes.submit(() -> passwordHashService.ejecutar(() -> {
+                try {
+                    return soltar.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            })));
+        }
+        try {
+            // Uno calculando y otro en cola
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (registry.get("hash.activos").gauge().value() < 1 || registry.get("hash.cola").gauge().value() < 1) {
+                assertTrue(System.nanoTime() < limite, "El pool de hash no llegó a llenarse");
+                Thread.sleep(5);
+            }
+
+            autenticar("/api/auth/login", "admin", "admin123")
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "7"));
+            autenticar("/api/auth/register", "saturado", "saturado123")
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "7"));
+            assertEquals(2, registry.counter("hash.rechazos").count() - rechazosAntes);
+        } finally {
+            soltar.countDown();
+        }
+        for (Future<Boolean> retenido : retenidos) {
+            assertTrue(retenido.get(30, TimeUnit.SECONDS));
+        }
+        clientes.shutdown();
+
+        // Con el pool libre todo vuelve a funcionar (el registro rechazado no dejó al usuario a medias)
+        assertFalse(token(autenticar("/api/auth/register", "saturado", "saturado123")).isBlank());
+        token(autenticar("/api/auth/login", "saturado", "saturado123"));
+        autenticar("/api/auth/login", "saturado", "incorrecta").andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions autenticar(String ruta, String username, String password) throws Exception {
+        return mockMvc.perform(post(ruta)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))));
+    }
+
+    private String token(ResultActions respuesta) throws Exception {
+        String cuerpo = respuesta.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(cuerpo).get("token").asText();
+    }
+}
@@ -0,0 +1,201 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.config.ReplicaProperties;
+import com.hotguy.tareas.dto.AuthRequest;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.dto.UsuarioRequest;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import com.hotguy.tareas.security.JwtUtil;
+import com.hotguy.tareas.security.TokenVerificado;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dos H2 en memoria hacen de primario y réplica. La "replicación" la hace el propio test copiando filas a mano
+@SpringBootTest(properties = {
+        "replica.habilitada=true",
+        "spring.datasource.url=jdbc:h2:mem:primario-replica-tests",
+        "replica.datasource.jdbc-url=jdbc:h2:mem:replica-replica-tests;DB_CLOSE_DELAY=-1",
+        "replica.datasource.username=hotguy",
+        "replica.datasource.maximum-pool-size=4",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class ReplicaLecturaTests {
+
+    // Una réplica real recibe el esquema por replicación; aquí se migra al crear su pool
+    @TestConfiguration
+    static class EsquemaReplica {
+        @Bean
+        static BeanPostProcessor migrarReplica() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nombre) {
+                    if (nombre.equals("replica") && bean instanceof HikariDataSource replica) {
+                        Flyway.configure().dataSource(replica.getJdbcUrl(), replica.getUsername(), "")
+                                .locations("classpath:db/migration/h2").load().migrate();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ReplicaProperties replicaProperties;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("primario")
+    private HikariDataSource primario;
+
+    @Autowired
+    @Qualifier("replica")
+    private HikariDataSource replica;
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+        replicaProperties.setLecturaTrasEscrituraMs(0);
+    }
+
+    @Test
+    void lasLecturasDeSoloLecturaVanALaReplica() {
+        Usuario usuario = crearUsuario("lectora");
+        autenticar("lectora");
+        tareaService.crearTarea("En el primario", "Aún no replicada");
+
+        // La réplica no tiene nada: el listado (readOnly) no ve la tarea ni al usuario
+        assertEquals(List.of(), tareaService.obtenerTareasFiltradasYOrdenadas("lectora", null, "fecha_desc"));
+        assertEquals(false, usuarioService.buscarPorUsername("lectora").isPresent());
+
+        // Cuando "replica", la lectura lo ve
+        replicar(usuario.getId());
+        List<TareaView> tareas = tareaService.obtenerTareasFiltradasYOrdenadas("lectora", null, "fecha_desc");
+        assertEquals(1, tareas.size());
+        assertEquals("En el primario", tareas.get(0).titulo());
+        assertEquals(true, usuarioService.buscarPorUsername("lectora").isPresent());
+    }
+
+    @Test
+    void trasEscribirElUsuarioLeeSusPropiosCambios() {
+        replicaProperties.setLecturaTrasEscrituraMs(60_000);
+        crearUsuario("escritora");
+        crearUsuario("vecina");
+
+        autenticar("escritora");
+        tareaService.crearTarea("Recién creada", "Solo está en el primario");
+        assertEquals(1, tareaService.obtenerTareasFiltradasYOrdenadas("escritora", null, "fecha_desc").size());
+
+        // Otro usuario sin escrituras recientes sigue leyendo de la réplica
+        autenticar("vecina");
+        assertEquals(0, tareaService.obtenerTareasFiltradasYOrdenadas("escritora", null, "fecha_desc").size());
+
+        // Pasada la ventana, la escritora vuelve a la réplica
+        replicaProperties.setLecturaTrasEscrituraMs(1);
+        autenticar("escritora");
+        esperar(5);
+        assertEquals(0, tareaService.obtenerTareasFiltradasYOrdenadas("escritora", null, "fecha_desc").size());
+    }
+
+    @Test
+    void elLoginLeeDelPrimarioSinAbrirUnaTransaccionDeEscritura() {
+        replicaProperties.setLecturaTrasEscrituraMs(60_000);
+        crearUsuario("recienllegada");
+
+        // Aún no está en la réplica, pero el login la encuentra
+        autenticar("recienllegada");
+        assertEquals("recienllegada", usuarioService.loadUserByUsername("recienllegada").getUsername());
+
+        // Una transacción de escritura habría abierto la ventana de lectura tras escritura: sus lecturas siguen en la
+        // réplica (sin la caché, que se llenó desde el primario)
+        entityManagerFactory.getCache().evictAll();
+        assertEquals(false, usuarioService.buscarPorUsername("recienllegada").isPresent());
+    }
+
+    @Test
+    void elRegistroYElTokenDelLoginLeenDelPrimario() {
+        // El usuario recién registrado aún no está en la réplica
+        assertTrue(authenticationService.registrarUsuario("registrada", "secreta").isPresent());
+        assertTrue(authenticationService.registrarUsuario("registrada", "otra").isEmpty());
+
+        // El token del login lleva el id y el rol del primario, no el token sin claims
+        UsuarioRequest credenciales = new UsuarioRequest();
+        credenciales.setUsername("registrada");
+        credenciales.setPassword("secreta");
+        AuthRequest respuesta = (AuthRequest) authenticationService.loguearUsuario(credenciales).getBody();
+        TokenVerificado token = jwtUtil.verificar(respuesta.token()).orElseThrow();
+        assertEquals(usuarioRepository.findByUsername("registrada").orElseThrow().getId(), token.usuarioId());
+        assertEquals("USER", token.rol());
+    }
+
+    private Usuario crearUsuario(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        return usuarioRepository.save(usuario); // Sin transacción de solo lectura: primario
+    }
+
+    // Copia las filas del usuario y sus tareas del primario a la réplica (con su propia conexión de escritura)
+    private void replicar(Long usuarioId) {
+        JdbcTemplate origen = new JdbcTemplate(primario);
+        JdbcTemplate destino = new JdbcTemplate(new DriverManagerDataSource(replica.getJdbcUrl(), replica.getUsername(), ""));
+        origen.queryForList("SELECT * FROM usuarios WHERE id = ?", usuarioId).forEach(fila -> destino.update(
+                "INSERT INTO usuarios (id, username, password, rol, secuencia_cambios) VALUES (?, ?, ?, ?, ?)",
+                fila.get("ID"), fila.get("USERNAME"), fila.get("PASSWORD"), fila.get("ROL"), fila.get("SECUENCIA_CAMBIOS")));
+        origen.queryForList("SELECT * FROM tareas WHERE usuario_id = ?", usuarioId).forEach(fila -> destino.update(
+                "INSERT INTO tareas (id, titulo, descripcion, completada, fecha_creacion, fecha_actualizacion, version, usuario_id, secuencia_cambio) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                fila.get("ID"), fila.get("TITULO"), fila.get("DESCRIPCION"), fila.get("COMPLETADA"), fila.get("FECHA_CREACION"),
+                fila.get("FECHA_ACTUALIZACION"), fila.get("VERSION"), fila.get("USUARIO_ID"), fila.get("SECUENCIA_CAMBIO")));
+    }
+
+    private static void autenticar(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static void esperar(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.dto.CambiosTareas;
+import com.hotguy.tareas.dto.OperacionLote;
+import com.hotguy.tareas.dto.ResultadoOperacion;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.TareaEliminadaRepository;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SincronizacionCambiosTests {
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TareaEliminadaRepository tareaEliminadaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void devuelveSoloLoCambiadoYLasLapidas() {
+        List<Long> ids = crearUsuarioConTareas("delta", 5);
+        CambiosTareas inicial = tareaService.obtenerCambios("delta", null, null);
+        assertEquals(5, inicial.actualizadas().size());
+        assertTrue(inicial.eliminadas().isEmpty());
+
+        CambiosTareas sinCambios = tareaService.obtenerCambios("delta", inicial.marca(), null);
+        assertTrue(sinCambios.actualizadas().isEmpty());
+        assertTrue(sinCambios.eliminadas().isEmpty());
+
+        tareaService.toggleCompletada(ids.get(0), "delta");
+        tareaService.editarTarea(ids.get(1), "delta", "Editada en el delta", null, null);
+        tareaService.eliminarTarea(ids.get(2)); // Como haría un ADMIN
+
+        CambiosTareas delta = tareaService.obtenerCambios("delta", sinCambios.marca(), null);
+        assertEquals(List.of(ids.get(0), ids.get(1)), delta.actualizadas().stream().map(TareaView::id).toList());
+        assertEquals(List.of(ids.get(2)), delta.eliminadas());
+        assertFalse(delta.hayMas());
+
+        // Paginado de uno en uno: mismo contenido y en orden de secuencia
+        List<Object> pasos = new ArrayList<>();
+        String marca = sinCambios.marca();
+        CambiosTareas pagina;
+        do {
+            pagina = tareaService.obtenerCambios("delta", marca, 1);
+            pasos.addAll(pagina.actualizadas().stream().map(TareaView::id).toList());
+            pasos.addAll(pagina.eliminadas().stream().map(id -> "-" + id).toList());
+            marca = pagina.marca();
+        } while (pagina.hayMas());
+        assertEquals(List.of(ids.get(0), ids.get(1), "-" + ids.get(2)), pasos);
+    }
+
+    @Test
+    void marcaCaducadaOInvalida() {
+        crearUsuarioConTareas("caducada", 1);
+        String antigua = Base64.getUrlEncoder().withoutPadding().encodeToString("1|0".getBytes(StandardCharsets.UTF_8));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> tareaService.obtenerCambios("caducada", antigua, null));
+        assertEquals(HttpStatus.GONE, error.getStatusCode());
+        assertThrows(IllegalArgumentException.class, () -> tareaService.obtenerCambios("caducada", "no-es-una-marca", null));
+    }
+
+    @Test
+    void laCompactacionBorraLasLapidasAntiguas() {
+        List<Long> ids = crearUsuarioConTareas("compactada", 1);
+        tareaService.eliminarTarea(ids.get(0));
+        assertTrue(tareaEliminadaRepository.existsById(ids.get(0)));
+
+        transactionTemplate.executeWithoutResult(tx -> tareaEliminadaRepository.compactar(LocalDateTime.now().plusSeconds(1)));
+        assertFalse(tareaEliminadaRepository.existsById(ids.get(0)));
+    }
+
+    @Test
+    void unClienteQueSincronizaDuranteEscriturasConcurrentesNoPierdeCambios() throws Exception {
+        List<Long> ids = crearUsuarioConTareas("concurrente", 10);
+        Map<Long, Long> local = new HashMap<>(); // id -> versión, lo que tendría el cliente
+        String marca = aplicar(local, null);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> escritores = new ArrayList<>();
+        for (int h = 0; h < 4; h++) {
+            int hilo = h;
+            escritores.add(pool.submit(() -> {
+                for (int i = 0; i < 40; i++) {
+                    tareaService.toggleCompletada(ids.get((hilo + i) % ids.size()), "concurrente");
+                }
+            }));
+        }
+        while (escritores.stream().anyMatch(f -> !f.isDone())) {
+            marca = aplicar(local, marca);
+        }
+        for (Future<?> escritor : escritores) escritor.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+        aplicar(local, marca);
+
+        Map<Long, Long> servidor = tareaRepository.findByUsuarioUsername("concurrente", Sort.by("id")).stream()
+                .collect(Collectors.toMap(TareaView::id, TareaView::version));
+        assertEquals(servidor, local);
+    }
+
+    private String aplicar(Map<Long, Long> local, String marca) {
+        CambiosTareas cambios;
+        do {
+            cambios = tareaService.obtenerCambios("concurrente", marca, 7);
+            cambios.actualizadas().forEach(t -> local.put(t.id(), t.version()));
+            cambios.eliminadas().forEach(local::remove);
+            marca = cambios.marca();
+        } while (cambios.hayMas());
+        return marca;
+    }
+
+    private List<Long> crearUsuarioConTareas(String username, int cuantas) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("x");
+        usuario.setRol("USER");
+        usuarioRepository.save(usuario);
+
+        List<OperacionLote> operaciones = new ArrayList<>();
+        for (int i = 0; i < cuantas; i++) {
+            OperacionLote op = new OperacionLote();
+            op.setTipo(OperacionLote.Tipo.CREAR);
+            op.setTitulo("Tarea " + i);
+            op.setDescripcion("Descripción " + i);
+            operaciones.add(op);
+        }
+        return tareaService.aplicarLote(username, false, operaciones).stream().map(ResultadoOperacion::id).toList();
+    }
+}
@@ -0,0 +1,197 @@
+package com.hotguy.tareas.service;
+
+import com.hotguy.tareas.dto.OperacionLote;
+import com.hotguy.tareas.dto.PaginaTareas;
+import com.hotguy.tareas.dto.ResultadoOperacion;
+import com.hotguy.tareas.dto.TareaView;
+import com.hotguy.tareas.model.Tarea;
+import com.hotguy.tareas.model.Usuario;
+import com.hotguy.tareas.repository.TareaRepository;
+import com.hotguy.tareas.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.auto=com.hotguy.tareas.service.TareaServiceTests$ContadorLotes"
+})
+class TareaServiceTests {
+
+    // Las estadísticas cuentan sentencias preparadas, no viajes a la BD: los executeBatch se cuentan aquí
+    public static class ContadorLotes implements SessionEventListener {
+        static final AtomicInteger LOTES = new AtomicInteger();
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            LOTES.incrementAndGet();
+        }
+    }
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void preparar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        if (usuarioRepository.findByUsername("lector").isEmpty()) {
+            Usuario usuario = new Usuario();
+            usuario.setUsername("lector");
+            usuario.setPassword("x");
+            usuario.setRol("USER");
+            usuarioRepository.save(usuario);
+
+            for (int i = 0; i < 25; i++) {
+                Tarea tarea = new Tarea("Tarea " + i, "Descripción " + i);
+                tarea.setCompletada(i % 3 == 0);
+                tarea.setUsuario(usuario);
+                tareaRepository.save(tarea);
+            }
+        }
+        estadisticas.clear();
+    }
+
+    @Test
+    void listarEjecutaUnaSolaConsultaSinEntidades() {
+        List<TareaView> tareas = tareaService.obtenerTareasFiltradasYOrdenadas("lector", null, "estado_asc,fecha_desc");
+
+        assertEquals(25, tareas.size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+    }
+
+    @Test
+    void paginarConCursorRecorreTodoEnElMismoOrden() {
+        List<Long> esperado = tareaService.obtenerTareasFiltradasYOrdenadas("lector", null, "estado_desc,fecha_asc")
+                .stream().map(TareaView::id).toList();
+
+        List<Long> recorrido = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaTareas pagina = tareaService.obtenerPaginaTareas("lector", null, "estado_desc,fecha_asc", cursor, 7);
+            pagina.tareas().forEach(t -> recorrido.add(t.id()));
+            cursor = pagina.siguienteCursor();
+        } while (cursor != null);
+
+        assertEquals(esperado, recorrido);
+    }
+
+    @Test
+    void loteDeQuinientasOperacionesEnviaLosInsertEnLotesJdbc() {
+        if (usuarioRepository.findByUsername("lotes").isEmpty()) {
+            Usuario usuario = new Usuario();
+            usuario.setUsername("lotes");
+            usuario.setPassword("x");
+            usuario.setRol("USER");
+            usuarioRepository.save(usuario);
+        }
+        List<OperacionLote> operaciones = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            OperacionLote op = new OperacionLote();
+            op.setTipo(OperacionLote.Tipo.CREAR);
+            op.setTitulo("Lote " + i);
+            op.setDescripcion("Descripción " + i);
+            operaciones.add(op);
+        }
+        long secuenciaAntes = valorSecuencia();
+        estadisticas.clear();
+        ContadorLotes.LOTES.set(0);
+
+        List<ResultadoOperacion> resultados = tareaService.aplicarLote("lotes", false, operaciones);
+
+        assertEquals(500, resultados.stream().filter(r -> r.id() != null).count());
+        assertEquals(500, estadisticas.getEntityInsertCount());
+        // 500 INSERT en 10 executeBatch de batch_size=50, y 10 viajes a tareas_seq (allocationSize=50 ids cada uno)
+        assertEquals(10, ContadorLotes.LOTES.get());
+        assertEquals(10, (valorSecuencia() - secuenciaAntes) / 50);
+    }
+
+    private long valorSecuencia() {
+        return jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TAREAS_SEQ'", Long.class);
+    }
+
+    @Test
+    void alternarDesdeMuchosHilosNoPierdeActualizaciones() throws Exception {
+        Long id = tareaService.obtenerTareasFiltradasYOrdenadas("lector", false, "fecha_asc").get(0).id();
+        TareaView inicial = tareaRepository.findVistaById(id).orElseThrow();
+
+        int hilos = 16;
+        int porHilo = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                for (int i = 0; i < porHilo; i++) {
+                    tareaService.toggleCompletada(id, "lector");
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        TareaView fin = tareaRepository.findVistaById(id).orElseThrow();
+        int total = hilos * porHilo;
+        assertEquals(inicial.version() + total, fin.version());
+        assertEquals(total % 2 == 0 ? inicial.completada() : !inicial.completada(), fin.completada());
+    }
+
+    @Test
+    void editarConVersionAntiguaDevuelveConflicto() {
+        Long id = tareaService.obtenerTareasFiltradasYOrdenadas("lector", null, "fecha_desc").get(0).id();
+        long version = tareaRepository.findVistaById(id).orElseThrow().version();
+
+        TareaView editada = tareaService.editarTarea(id, "lector", "Nueva descripción", null, version);
+        assertEquals(version + 1, editada.version());
+        assertEquals("Nueva descripción", editada.descripcion());
+
+        ResponseStatusException conflicto = assertThrows(ResponseStatusException.class,
+                () -> tareaService.editarTarea(id, "lector", "Otra descripción", null, version));
+        assertEquals(HttpStatus.CONFLICT, conflicto.getStatusCode());
+
+        ResponseStatusException ajena = assertThrows(ResponseStatusException.class,
+                () -> tareaService.toggleCompletada(id, "otro"));
+        assertEquals(HttpStatus.NOT_FOUND, ajena.getStatusCode());
+    }
+}
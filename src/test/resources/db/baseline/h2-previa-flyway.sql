@@ -0,0 +1,28 @@
+-- Volcado (SCRIPT) de una BD H2 creada por la aplicación del commit inicial con ddl-auto=update, con el admin
+-- por defecto y dos tareas. Sirve para probar que las migraciones arrancan sobre BD de antes de Flyway
+CREATE USER IF NOT EXISTS "HOTGUY" PASSWORD '' ADMIN;
+CREATE CACHED TABLE "PUBLIC"."TAREAS"(
+    "ID" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1 RESTART WITH 3) NOT NULL,
+    "COMPLETADA" BOOLEAN NOT NULL,
+    "DESCRIPCION" CHARACTER VARYING(255) NOT NULL,
+    "FECHA_ACTUALIZACION" TIMESTAMP(6),
+    "FECHA_CREACION" TIMESTAMP(6),
+    "TITULO" CHARACTER VARYING(255) NOT NULL,
+    "USUARIO_ID" BIGINT
+);
+ALTER TABLE "PUBLIC"."TAREAS" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_9" PRIMARY KEY("ID");
+-- 2 +/- SELECT COUNT(*) FROM PUBLIC.TAREAS;
+INSERT INTO "PUBLIC"."TAREAS" VALUES
+(1, FALSE, 'Creada antes de Flyway', TIMESTAMP '2026-10-18 11:43:14.343695', TIMESTAMP '2026-10-18 11:43:14.343695', 'Antigua', 1),
+(2, TRUE, 'Completada antes de Flyway', TIMESTAMP '2026-10-18 11:43:14.343695', TIMESTAMP '2026-10-18 11:43:14.343695', 'Hecha', 1);
+CREATE CACHED TABLE "PUBLIC"."USUARIOS"(
+    "ID" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1 RESTART WITH 2) NOT NULL,
+    "PASSWORD" CHARACTER VARYING(255),
+    "ROL" CHARACTER VARYING(255),
+    "USERNAME" CHARACTER VARYING(255)
+);
+ALTER TABLE "PUBLIC"."USUARIOS" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_3" PRIMARY KEY("ID");
+-- 1 +/- SELECT COUNT(*) FROM PUBLIC.USUARIOS;
+INSERT INTO "PUBLIC"."USUARIOS" VALUES
+(1, '$2a$10$xqqtdkvwZ6ja0RX9Wu3.4uBZOK49xEiMcgcmh8pEwATix1K0I/EN6', 'ADMIN', 'admin');
+ALTER TABLE "PUBLIC"."TAREAS" ADD CONSTRAINT "PUBLIC"."FKDMOAXL7YV4Q6VKC9H32WVBDDR" FOREIGN KEY("USUARIO_ID") REFERENCES "PUBLIC"."USUARIOS"("ID") NOCHECK;